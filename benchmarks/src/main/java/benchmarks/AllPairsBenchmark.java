@@ -0,0 +1,71 @@
+package benchmarks;
+
+import entities.Route;
+import org.openjdk.jmh.annotations.*;
+import routing.AllPairs;
+import routing.FloydWarshall;
+import routing.RouteGraph;
+import routing.RouteMetric;
+import services.RoutingMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Floyd-Warshall modes: computing the all-pairs tables, and reading an itinerary from them.
+ * Sizes stop at 4000 airports, the tables taking 12 bytes per airport pair (192 MB) and the sequential computation
+ * over a minute there.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class AllPairsBenchmark {
+    private static final int PAIRS = 1024;
+
+    @Param({"10", "100", "500", "1000", "2000", "4000"})
+    public int airports;
+
+    @Param("8")
+    public int density;
+
+    @Param("0.1")
+    public double duplicateRatio;
+
+    @Param({"FLOYD_WARSHALL", "PARALLEL_FLOYD_WARSHALL"})
+    public RoutingMode mode;
+
+    @Param({"KM", "PRICE"})
+    public RouteMetric metric;
+
+    private RouteGraph graph;
+    private AllPairs allPairs;
+    private int[][] pairs;
+    private int next;
+
+    @Setup
+    public void prepare() {
+        SyntheticNetwork network = SyntheticNetwork.generate(airports, density, duplicateRatio, 42);
+        graph = network.graph();
+        pairs = network.queryPairs(PAIRS, 7);
+        allPairs = compute();
+    }
+
+    @Benchmark
+    public AllPairs compute() {
+        return switch (mode) {
+            case FLOYD_WARSHALL -> FloydWarshall.apply(graph, metric);
+            case PARALLEL_FLOYD_WARSHALL -> FloydWarshall.applyBlocked(graph, metric);
+            default -> throw new IllegalArgumentException(mode + " is benchmarked by RoutingBenchmark.");
+        };
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Route> query() {
+        int[] pair = pairs[next++ & (PAIRS - 1)];
+        return allPairs.routes(pair[0], pair[1]);
+    }
+}
@@ -0,0 +1,43 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import routing.ContractionHierarchy;
+import routing.RouteGraph;
+import routing.RouteMetric;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preprocessing of the contraction hierarchies mode, run again after every change to the routes.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class ContractionHierarchyBenchmark {
+    @Param({"10", "100", "1000", "10000", "50000"})
+    public int airports;
+
+    @Param("8")
+    public int density;
+
+    @Param("0.1")
+    public double duplicateRatio;
+
+    @Param({"KM", "PRICE"})
+    public RouteMetric metric;
+
+    private RouteGraph graph;
+
+    @Setup
+    public void prepare() {
+        graph = SyntheticNetwork.generate(airports, density, duplicateRatio, 42).graph();
+    }
+
+    @Benchmark
+    public ContractionHierarchy build() {
+        return ContractionHierarchy.build(graph, metric);
+    }
+}
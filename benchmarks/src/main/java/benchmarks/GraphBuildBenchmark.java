@@ -0,0 +1,38 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import routing.RouteGraph;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the CSR route network from the airport and route lists, as done once per {@code RouteService}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GraphBuildBenchmark {
+    @Param({"10", "100", "1000", "10000", "50000"})
+    public int airports;
+
+    @Param("8")
+    public int density;
+
+    @Param("0.1")
+    public double duplicateRatio;
+
+    private SyntheticNetwork network;
+
+    @Setup
+    public void generate() {
+        network = SyntheticNetwork.generate(airports, density, duplicateRatio, 42);
+    }
+
+    @Benchmark
+    public RouteGraph build() {
+        return RouteGraph.build(network.airports(), network.routes());
+    }
+}
@@ -0,0 +1,102 @@
+package benchmarks;
+
+import entities.Airport;
+import org.openjdk.jmh.annotations.*;
+import routing.RouteConstraints;
+import routing.RouteGraph;
+import routing.RouteMetric;
+import services.ItineraryCache;
+import services.RouteService;
+import services.RoutingMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Itinerary queries through {@link RouteService}, as the booking flow runs them: a new service per query over the
+ * shared network, over random airport pairs.
+ * <p>
+ * With a {@code COLD} cache, the {@link ItineraryCache} is cleared before every query, so every itinerary is
+ * searched; with a {@code WARM} one, every pair is queried once beforehand, so the cached queries (the single-source
+ * modes and the Pareto frontier) measure the cache lookups. K-shortest and constrained queries are never cached.
+ * <p>
+ * The network is handed to the services, so no database is needed. The contraction hierarchy and Floyd-Warshall
+ * modes are measured by {@link ContractionHierarchyBenchmark} and {@link AllPairsBenchmark}: through the service they
+ * query the process-wide structures built from the route graph snapshot of the database.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RouteServiceBenchmark {
+    /** Fewer pairs than the cache holds, so that a warm cache answers every query. */
+    private static final int PAIRS = 256;
+    private static final int K = 5;
+
+    public enum Query {
+        DIJKSTRA, A_STAR, BIDIRECTIONAL_DIJKSTRA, PARETO, K_SHORTEST, CONSTRAINED
+    }
+
+    public enum Cache {
+        COLD, WARM
+    }
+
+    @Param({"100", "1000", "10000"})
+    public int airports;
+
+    @Param("8")
+    public int density;
+
+    @Param("0.1")
+    public double duplicateRatio;
+
+    @Param({"DIJKSTRA", "A_STAR", "BIDIRECTIONAL_DIJKSTRA", "PARETO", "K_SHORTEST", "CONSTRAINED"})
+    public Query query;
+
+    @Param({"KM", "PRICE"})
+    public RouteMetric metric;
+
+    @Param({"COLD", "WARM"})
+    public Cache cache;
+
+    private RouteGraph graph;
+    private RouteConstraints constraints;
+    private int[][] pairs;
+    private int next;
+
+    @Setup
+    public void prepare() {
+        SyntheticNetwork network = SyntheticNetwork.generate(airports, density, duplicateRatio, 42);
+        graph = network.graph();
+        pairs = network.queryPairs(PAIRS, 7);
+        // At most 4 stops, on three quarters of the airlines.
+        constraints = RouteConstraints.none().withMaxStops(4).withDeniedAirlines(List.of(1, 2, 3, 4, 5));
+
+        ItineraryCache.clear();
+        if (cache == Cache.WARM) {
+            for (int i = 0; i < PAIRS; i++)
+                query();
+        }
+    }
+
+    @Benchmark
+    public Object query() {
+        int[] pair = pairs[next++ & (PAIRS - 1)];
+        if (cache == Cache.COLD)
+            ItineraryCache.clear();
+
+        Airport start = graph.airport(pair[0]);
+        Airport end = graph.airport(pair[1]);
+        RouteService service = new RouteService(graph, start, end);
+        return switch (query) {
+            case DIJKSTRA -> service.getRoutesBetweenAirports(metric, RoutingMode.DIJKSTRA);
+            case A_STAR -> service.getRoutesBetweenAirports(metric, RoutingMode.A_STAR);
+            case BIDIRECTIONAL_DIJKSTRA -> service.getRoutesBetweenAirports(metric, RoutingMode.BIDIRECTIONAL_DIJKSTRA);
+            case PARETO -> service.getParetoRoutes();
+            case K_SHORTEST -> service.getKShortestRoutes(metric, K);
+            case CONSTRAINED -> service.getConstrainedRoutes(metric, constraints);
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import entities.Route;
+import org.openjdk.jmh.annotations.*;
+import routing.*;
+import services.RoutingMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-to-point queries of the single-source routing modes, over random airport pairs.
+ * <p>
+ * The algorithms are called directly on the synthetic network, as {@code RouteService} does, so the itinerary
+ * cache never answers and the contraction hierarchy is preprocessed once per trial without any database.
+ * See {@link AllPairsBenchmark} for the Floyd-Warshall modes, and {@link RouteServiceBenchmark} for the same queries
+ * through {@code RouteService}, along with the Pareto, k-shortest and constrained ones.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RoutingBenchmark {
+    private static final int PAIRS = 1024;
+
+    @Param({"10", "100", "1000", "10000", "50000"})
+    public int airports;
+
+    @Param("8")
+    public int density;
+
+    @Param("0.1")
+    public double duplicateRatio;
+
+    @Param({"DIJKSTRA", "A_STAR", "BIDIRECTIONAL_DIJKSTRA", "CONTRACTION_HIERARCHIES"})
+    public RoutingMode mode;
+
+    @Param({"KM", "PRICE"})
+    public RouteMetric metric;
+
+    private RouteGraph graph;
+    private ContractionHierarchy hierarchy;
+    private int[][] pairs;
+    private int next;
+
+    @Setup
+    public void prepare() {
+        SyntheticNetwork network = SyntheticNetwork.generate(airports, density, duplicateRatio, 42);
+        graph = network.graph();
+        pairs = network.queryPairs(PAIRS, 7);
+        if (mode == RoutingMode.CONTRACTION_HIERARCHIES)
+            hierarchy = ContractionHierarchy.build(graph, metric);
+    }
+
+    @Benchmark
+    public List<Route> query() {
+        int[] pair = pairs[next++ & (PAIRS - 1)];
+        return switch (mode) {
+            case DIJKSTRA -> graph.routes(Dijkstra.findPath(graph, metric, pair[0], pair[1]));
+            case A_STAR -> graph.routes(AStar.findPath(graph, metric, pair[0], pair[1]));
+            case BIDIRECTIONAL_DIJKSTRA -> graph.routes(BidirectionalDijkstra.findPath(graph, metric, pair[0], pair[1]));
+            case CONTRACTION_HIERARCHIES -> hierarchy.routes(pair[0], pair[1]);
+            default -> throw new IllegalArgumentException(mode + " is benchmarked by AllPairsBenchmark.");
+        };
+    }
+}
@@ -0,0 +1,142 @@
+package benchmarks;
+
+import entities.Airport;
+import entities.Route;
+import routing.GreatCircle;
+import routing.RouteGraph;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reproducible airport/route network for the benchmarks, generated without any database.
+ * <p>
+ * Airports are scattered over the globe and bucketed in a latitude/longitude grid. Each airport gets
+ * {@code density} routes: most of them to airports of its own or a neighbouring cell, the others to one of the
+ * hubs (the first percent of the airports), so the network has short regional hops and long-haul shortcuts.
+ * Distances are the great-circle distance plus a detour of 5 to 25%, and prices grow with the distance.
+ * A {@code duplicateRatio} share of the routes gets a second route between the same airports, on another airline
+ * and at another price, as airlines competing on the same city pair do.
+ */
+public final class SyntheticNetwork {
+    private static final double LOCAL_SHARE = 0.8;
+    private static final int AIRLINES = 20;
+
+    private final List<Airport> airports;
+    private final List<Route> routes;
+
+    private SyntheticNetwork(List<Airport> airports, List<Route> routes) {
+        this.airports = airports;
+        this.routes = routes;
+    }
+
+    /**
+     * @param airportCount   the number of airports
+     * @param density        the average number of routes leaving each airport, duplicates excluded
+     * @param duplicateRatio the share of routes duplicated on another airline, between 0 and 1
+     * @param seed           the seed of the generator, equal seeds giving equal networks
+     * @return the generated network
+     */
+    public static SyntheticNetwork generate(int airportCount, int density, double duplicateRatio, long seed) {
+        Random random = new Random(seed);
+        double[] latitudes = new double[airportCount];
+        double[] longitudes = new double[airportCount];
+        List<Airport> airports = new ArrayList<>(airportCount);
+        for (int i = 0; i < airportCount; i++) {
+            latitudes[i] = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            longitudes[i] = 360 * random.nextDouble() - 180;
+            airports.add(new Airport(101 + i, "Airport " + i, latitudes[i], longitudes[i]));
+        }
+
+        int side = Math.max(1, (int) Math.sqrt(airportCount / 8.0));
+        int[][] cells = bucket(latitudes, longitudes, side);
+        int hubs = Math.max(1, airportCount / 100);
+
+        List<Route> routes = new ArrayList<>((int) (airportCount * density * (1 + duplicateRatio)));
+        for (int from = 0; from < airportCount && airportCount > 1; from++) {
+            int row = cellRow(latitudes[from], side);
+            int column = cellColumn(longitudes[from], side);
+            for (int r = 0; r < density; r++) {
+                int to;
+                if (random.nextDouble() < LOCAL_SHARE) {
+                    int[] cell = cells[Math.floorMod(row + random.nextInt(3) - 1, side) * side
+                            + Math.floorMod(column + random.nextInt(3) - 1, side)];
+                    to = cell.length == 0 ? random.nextInt(airportCount) : cell[random.nextInt(cell.length)];
+                } else {
+                    to = random.nextInt(hubs);
+                }
+                if (to == from)
+                    to = (from + 1) % airportCount;
+
+                double greatCircle = GreatCircle.km(latitudes[from], longitudes[from], latitudes[to], longitudes[to]);
+                int km = Math.max(1, (int) Math.round(greatCircle * (1.05 + 0.2 * random.nextDouble())));
+                routes.add(route(routes.size() + 1, from, to, random, km));
+                if (random.nextDouble() < duplicateRatio)
+                    routes.add(route(routes.size() + 1, from, to, random, km));
+            }
+        }
+
+        return new SyntheticNetwork(airports, routes);
+    }
+
+    private static Route route(int id, int from, int to, Random random, int km) {
+        double price = Math.round((30 + km * (0.08 + 0.07 * random.nextDouble())) * 100) / 100.0;
+        return new Route(id, 101 + from, 101 + to, 1 + random.nextInt(AIRLINES), km, price);
+    }
+
+    private static int[][] bucket(double[] latitudes, double[] longitudes, int side) {
+        int[] counts = new int[side * side];
+        for (int i = 0; i < latitudes.length; i++)
+            counts[cellRow(latitudes[i], side) * side + cellColumn(longitudes[i], side)]++;
+
+        int[][] cells = new int[side * side][];
+        for (int c = 0; c < cells.length; c++)
+            cells[c] = new int[counts[c]];
+        for (int i = latitudes.length - 1; i >= 0; i--) {
+            int c = cellRow(latitudes[i], side) * side + cellColumn(longitudes[i], side);
+            cells[c][--counts[c]] = i;
+        }
+
+        return cells;
+    }
+
+    private static int cellRow(double latitude, int side) {
+        return Math.min(side - 1, (int) ((latitude + 90) / 180 * side));
+    }
+
+    private static int cellColumn(double longitude, int side) {
+        return Math.min(side - 1, (int) ((longitude + 180) / 360 * side));
+    }
+
+    public List<Airport> airports() {
+        return airports;
+    }
+
+    public List<Route> routes() {
+        return routes;
+    }
+
+    public RouteGraph graph() {
+        return RouteGraph.build(airports, routes);
+    }
+
+    /**
+     * Draws random (departure, destination) airport index pairs, departure and destination being different.
+     *
+     * @param count the number of pairs
+     * @param seed  the seed of the draw
+     * @return the pairs, as {@code {start, end}} arrays
+     */
+    public int[][] queryPairs(int count, long seed) {
+        Random random = new Random(seed);
+        int[][] pairs = new int[count][];
+        for (int i = 0; i < count; i++) {
+            int start = random.nextInt(airports.size());
+            int end = random.nextInt(airports.size() - 1);
+            pairs[i] = new int[]{start, end >= start ? end + 1 : end};
+        }
+
+        return pairs;
+    }
+}
@@ -1,9 +1,11 @@
+import services.GraphSnapshotStore;
 import services.MainMenu;
 
 public class Main {
 
     public static void main(String[] args) {
         System.out.println("Welcome to Aviasales!");
+        GraphSnapshotStore.watchChanges();
         MainMenu.start();
     }
 
@@ -0,0 +1,108 @@
+import entities.Entity;
+import services.DatabaseSeeder;
+import services.DatasetSink;
+import services.JsonLinesDataset;
+import services.NetworkGenerator;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command-line tool generating synthetic datasets and loading them into the database.
+ * <pre>
+ * Seed [--seed N] --airports N [--airlines N] [--routes-per-airport N] [--passengers N] [--trips N]
+ *      [--from yyyy-MM-dd --to yyyy-MM-dd] (--out DIRECTORY | --db)
+ * Seed --load DIRECTORY
+ * </pre>
+ * The database must hold empty tables, as created by {@code database.sql} without its sample rows; the
+ * {@code data_version} row is not a sample and must be kept.
+ */
+public class Seed {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--"))
+                usage("Unexpected argument: " + args[i]);
+            boolean flag = i + 1 == args.length || args[i + 1].startsWith("--");
+            options.put(args[i].substring(2), flag ? "" : args[++i]);
+        }
+
+        long start = System.nanoTime();
+        long rows;
+        if (options.containsKey("load")) {
+            try (DatasetSink database = new DatabaseSeeder()) {
+                rows = JsonLinesDataset.load(Path.of(options.get("load")), database);
+            }
+        } else {
+            if (!options.containsKey("airports"))
+                usage("Missing --airports");
+            if (options.containsKey("out") == options.containsKey("db"))
+                usage("Expected either --out or --db");
+
+            NetworkGenerator.Settings settings = settings(options);
+            CountingSink sink = new CountingSink(options.containsKey("db") ? new DatabaseSeeder()
+                    : JsonLinesDataset.writer(Path.of(options.get("out"))));
+            try (sink) {
+                new NetworkGenerator(settings).generate(sink);
+            }
+            rows = sink.count;
+        }
+
+        System.out.printf("%d rows written in %d ms%n", rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static NetworkGenerator.Settings settings(Map<String, String> options) {
+        try {
+            NetworkGenerator.Settings settings = NetworkGenerator.Settings.of(
+                    Long.parseLong(options.getOrDefault("seed", "42")), Integer.parseInt(options.get("airports")));
+            if (options.containsKey("airlines"))
+                settings = settings.withAirlines(Integer.parseInt(options.get("airlines")));
+            if (options.containsKey("routes-per-airport"))
+                settings = settings.withRoutesPerAirport(Integer.parseInt(options.get("routes-per-airport")));
+            if (options.containsKey("passengers"))
+                settings = settings.withPassengers(Integer.parseInt(options.get("passengers")));
+            if (options.containsKey("trips"))
+                settings = settings.withTrips(Integer.parseInt(options.get("trips")));
+            if (options.containsKey("from") || options.containsKey("to"))
+                settings = settings.withTripDates(
+                        LocalDate.parse(options.getOrDefault("from", settings.firstTripDate().toString())),
+                        LocalDate.parse(options.getOrDefault("to", settings.lastTripDate().toString())));
+            return settings;
+        } catch (RuntimeException e) {
+            usage(e.getMessage());
+            return null;
+        }
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: Seed [--seed N] --airports N [--airlines N] [--routes-per-airport N] [--passengers N]"
+                + " [--trips N] [--from yyyy-MM-dd --to yyyy-MM-dd] (--out DIRECTORY | --db)");
+        System.err.println("       Seed --load DIRECTORY");
+        System.exit(2);
+    }
+
+    private static final class CountingSink implements DatasetSink {
+        private final DatasetSink sink;
+        private long count;
+
+        CountingSink(DatasetSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void accept(Entity entity) throws IOException {
+            sink.accept(entity);
+            count++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            sink.close();
+        }
+    }
+}
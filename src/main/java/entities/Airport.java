@@ -7,7 +7,7 @@ import entities.annotations.Column;
 import entities.annotations.Range;
 import entities.annotations.Size;
 
-@JsonPropertyOrder({"id", "name"})
+@JsonPropertyOrder({"id", "name", "latitude", "longitude"})
 public class Airport implements Entity {
     @Column(name = "id", autoIncrement = true)
     @Range(min = 101)
@@ -17,6 +17,14 @@ public class Airport implements Entity {
     @Size(min = 1, max = 255)
     private String name;
 
+    @Column(name = "latitude", isNullable = true)
+    @Range(min = -90, max = 90)
+    private Double latitude;
+
+    @Column(name = "longitude", isNullable = true)
+    @Range(min = -180, max = 180)
+    private Double longitude;
+
     private Airport() {
     }
 
@@ -25,10 +33,23 @@ public class Airport implements Entity {
         this.name = name;
     }
 
+    public Airport(int id, String name, Double latitude, Double longitude) {
+        this.id = id;
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
     public Airport(String name) {
         this.name = name;
     }
 
+    public Airport(String name, Double latitude, Double longitude) {
+        this.name = name;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
     @JsonGetter("id")
     public int getId() {
         return id;
@@ -49,6 +70,26 @@ public class Airport implements Entity {
         this.name = name;
     }
 
+    @JsonGetter("latitude")
+    public Double getLatitude() {
+        return latitude;
+    }
+
+    @JsonSetter("latitude")
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+
+    @JsonGetter("longitude")
+    public Double getLongitude() {
+        return longitude;
+    }
+
+    @JsonSetter("longitude")
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+
     @Override
     public String toString() {
         return String.format("ID%d - %s", this.id, this.name);
@@ -60,7 +60,7 @@ public class Passenger implements Entity {
         return lastName;
     }
 
-    @JsonSetter("name")
+    @JsonSetter("lastName")
     public void setLastName(String lastName) {
         this.lastName = lastName;
     }
@@ -0,0 +1,64 @@
+package routing;
+
+import entities.Route;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Goal-directed shortest path search over a {@link RouteGraph}.
+ * <p>
+ * For {@link RouteMetric#KM}, the remaining distance of an airport is estimated as its great-circle distance to the
+ * destination scaled by {@link RouteGraph#kmPerGreatCircleKm()}. The estimate never exceeds the km of any route
+ * and satisfies the triangle inequality, so it is admissible and consistent, and the search only settles the
+ * airports lying roughly towards the destination. The estimate only holds if every airport has coordinates: a path
+ * through an airport without coordinates may be shorter than the scaled great-circle distance of its endpoints, so
+ * such networks, like any other metric, have no estimate and the search behaves like Dijkstra's.
+ */
+public final class AStar {
+    private AStar() {
+    }
+
+    /**
+     * Finds the cheapest path between two airports.
+     *
+     * @param graph  the route network
+     * @param metric the metric to minimize
+     * @param source index of the departure airport
+     * @param target index of the destination airport
+     * @return the edge slots of the path in travel order, or an empty array if the target is unreachable
+     */
+    public static int[] findPath(RouteGraph graph, ToDoubleFunction<Route> metric, int source, int target) {
+        final int V = graph.airportCount();
+        double[] weights = graph.weights(metric);
+        boolean estimate = metric == RouteMetric.KM && graph.hasAllCoordinates();
+        double scale = graph.kmPerGreatCircleKm();
+
+        double[] distances = new double[V];
+        int[] parentEdges = new int[V];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parentEdges, -1);
+        distances[source] = 0;
+
+        NodeHeap heap = new NodeHeap(V);
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            if (node == target)
+                return Dijkstra.pathTo(graph, parentEdges, source, target);
+
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                int next = graph.target(edge);
+                double distance = distances[node] + weights[edge];
+                if (distance < distances[next]) {
+                    distances[next] = distance;
+                    parentEdges[next] = edge;
+                    double remaining = estimate ? scale * graph.greatCircleKm(next, target) : 0;
+                    heap.push(next, distance + remaining);
+                }
+            }
+        }
+
+        return new int[0];
+    }
+}
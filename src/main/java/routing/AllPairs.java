@@ -0,0 +1,214 @@
+package routing;
+
+import entities.Route;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Result of an all-pairs computation over a {@link RouteGraph} for one metric.
+ * <p>
+ * Distances and next hops are stored as flat row-major arrays, {@code distances[i * V + j]} being the
+ * cost from airport {@code i} to airport {@code j}, and {@code next[i * V + j]} the airport following
+ * {@code i} on that path (-1 if {@code j} is unreachable). Paths are only rebuilt for the pairs asked for.
+ * <p>
+ * Instances are never modified: {@link #update(RouteGraph)} returns a new result for a new version of the network.
+ */
+public final class AllPairs {
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    private final RouteGraph graph;
+    private final ToDoubleFunction<Route> metric;
+    private final double[] weights;
+    final int size;
+    final double[] distances;
+    final int[] next;
+
+    AllPairs(RouteGraph graph, ToDoubleFunction<Route> metric, double[] weights, double[] distances, int[] next) {
+        this.graph = graph;
+        this.metric = metric;
+        this.weights = weights;
+        this.size = graph.airportCount();
+        this.distances = distances;
+        this.next = next;
+    }
+
+    public RouteGraph graph() {
+        return graph;
+    }
+
+    ToDoubleFunction<Route> metric() {
+        return metric;
+    }
+
+    public double distance(int from, int to) {
+        return distances[from * size + to];
+    }
+
+    /**
+     * Rebuilds the airports of a path following the next hops.
+     *
+     * @param from index of the departure airport
+     * @param to   index of the destination airport
+     * @return the airport indexes from departure to destination, or an empty array if it is unreachable
+     */
+    public int[] airportPath(int from, int to) {
+        if (next[from * size + to] == -1)
+            return new int[0];
+
+        int length = 1;
+        for (int node = from; node != to; node = next[node * size + to]) {
+            if (++length > size)
+                throw new IllegalStateException("Next-hop cycle between airports " + from + " and " + to);
+        }
+
+        int[] path = new int[length];
+        int node = from;
+        for (int i = 0; i < length; i++, node = next[node * size + to])
+            path[i] = node;
+
+        return path;
+    }
+
+    /**
+     * Rebuilds the edges of a path, taking the cheapest of the parallel routes between consecutive airports.
+     *
+     * @param from index of the departure airport
+     * @param to   index of the destination airport
+     * @return the edge slots of the path in travel order, or an empty array if it is unreachable
+     */
+    public int[] path(int from, int to) {
+        int[] airportPath = airportPath(from, to);
+        if (airportPath.length == 0)
+            return new int[0];
+
+        int[] edges = new int[airportPath.length - 1];
+        for (int i = 0; i < edges.length; i++)
+            edges[i] = graph.cheapestEdge(airportPath[i], airportPath[i + 1], weights);
+
+        return edges;
+    }
+
+    public List<Route> routes(int from, int to) {
+        return graph.routes(path(from, to));
+    }
+
+    /**
+     * Brings the result up to date with a new version of the network, without recomputing every pair.
+     * <p>
+     * The routes of both versions are matched by ID to find the airport pairs whose cheapest direct route changed.
+     * Pairs that got cheaper (new or cheaper routes) are relaxed through the new direct route in O(V²) each.
+     * Pairs that got more expensive (deleted or pricier routes) only invalidate the destinations whose paths went
+     * through them, found in the next-hop table, and only those columns are recomputed with a backwards search.
+     *
+     * @param newGraph the new version of the network, over the same airports in the same order
+     * @return the updated result, or null if the airports changed and a full recomputation is needed
+     */
+    public AllPairs update(RouteGraph newGraph) {
+        if (!newGraph.hasAirports(graph.airports()))
+            return null;
+
+        final int V = size;
+        double[] newWeights = newGraph.weights(metric);
+        double[] d = distances.clone();
+        int[] nextHops = next.clone();
+
+        List<int[]> increased = new ArrayList<>();
+        for (long pair : changedPairs(newGraph, newWeights)) {
+            int from = (int) (pair / V);
+            int to = (int) (pair % V);
+            if (from == to)
+                continue;
+
+            double before = directWeight(graph, weights, from, to);
+            double after = directWeight(newGraph, newWeights, from, to);
+            if (after < before)
+                relax(d, nextHops, from, to, after);
+            else if (after > before)
+                increased.add(new int[]{from, to});
+        }
+
+        boolean[] affected = new boolean[V];
+        for (int[] pair : increased) {
+            int row = pair[0] * V;
+            for (int j = 0; j < V; j++) {
+                if (nextHops[row + j] == pair[1])
+                    affected[j] = true;
+            }
+        }
+
+        int[] successorEdges = new int[V];
+        for (int j = 0; j < V; j++) {
+            if (!affected[j])
+                continue;
+
+            double[] column = Dijkstra.distancesTo(newGraph, newWeights, j, successorEdges);
+            for (int i = 0; i < V; i++) {
+                d[i * V + j] = column[i];
+                nextHops[i * V + j] = i == j ? j : successorEdges[i] == -1 ? -1 : newGraph.target(successorEdges[i]);
+            }
+        }
+
+        return new AllPairs(newGraph, metric, newWeights, d, nextHops);
+    }
+
+    /**
+     * Finds the airport pairs touched by a route that was added, deleted, moved or re-weighted.
+     *
+     * @return the pairs, encoded as {@code from * V + to}
+     */
+    private Set<Long> changedPairs(RouteGraph newGraph, double[] newWeights) {
+        boolean[] kept = new boolean[graph.edgeCount()];
+        Set<Long> pairs = new HashSet<>();
+        for (int edge = 0; edge < newGraph.edgeCount(); edge++) {
+            int oldEdge = graph.edgeOf(newGraph.routeId(edge));
+            boolean same = oldEdge != -1
+                    && graph.source(oldEdge) == newGraph.source(edge)
+                    && graph.target(oldEdge) == newGraph.target(edge)
+                    && weights[oldEdge] == newWeights[edge];
+            if (oldEdge != -1)
+                kept[oldEdge] = true;
+            if (!same) {
+                pairs.add((long) newGraph.source(edge) * size + newGraph.target(edge));
+                if (oldEdge != -1)
+                    pairs.add((long) graph.source(oldEdge) * size + graph.target(oldEdge));
+            }
+        }
+
+        for (int oldEdge = 0; oldEdge < kept.length; oldEdge++) {
+            if (!kept[oldEdge])
+                pairs.add((long) graph.source(oldEdge) * size + graph.target(oldEdge));
+        }
+
+        return pairs;
+    }
+
+    private static double directWeight(RouteGraph graph, double[] weights, int from, int to) {
+        int edge = graph.cheapestEdge(from, to, weights);
+        return edge == -1 ? INF : weights[edge];
+    }
+
+    /**
+     * Relaxes every pair through a new or cheaper direct route, keeping the next hops consistent.
+     */
+    private void relax(double[] d, int[] nextHops, int from, int to, double weight) {
+        final int V = size;
+        final int rowTo = to * V;
+        for (int i = 0; i < V; i++) {
+            final int rowI = i * V;
+            double iFrom = d[rowI + from];
+            if (iFrom == INF)
+                continue;
+
+            int hop = i == from ? to : nextHops[rowI + from];
+            double viaEdge = iFrom + weight;
+            for (int j = 0; j < V; j++) {
+                double candidate = viaEdge + d[rowTo + j];
+                if (candidate < d[rowI + j]) {
+                    d[rowI + j] = candidate;
+                    nextHops[rowI + j] = hop;
+                }
+            }
+        }
+    }
+}
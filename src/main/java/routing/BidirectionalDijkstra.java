@@ -0,0 +1,112 @@
+package routing;
+
+import entities.Route;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Point-to-point shortest path search growing a forward frontier from the departure airport over the outgoing
+ * routes and a backward frontier from the destination over the reverse index of {@link RouteGraph}.
+ * <p>
+ * The frontier with the lowest key is expanded at each step, and every time an airport is reached by both
+ * searches the best meeting cost is updated. The search stops once the keys at the top of both heaps add up to
+ * at least that cost, since no path through an unsettled airport can be cheaper.
+ */
+public final class BidirectionalDijkstra {
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    private BidirectionalDijkstra() {
+    }
+
+    /**
+     * Finds the cheapest path between two airports.
+     *
+     * @param graph  the route network
+     * @param metric the metric to minimize
+     * @param source index of the departure airport
+     * @param target index of the destination airport
+     * @return the edge slots of the path in travel order, or an empty array if the target is unreachable
+     */
+    public static int[] findPath(RouteGraph graph, ToDoubleFunction<Route> metric, int source, int target) {
+        if (source == target)
+            return new int[0];
+
+        final int V = graph.airportCount();
+        double[] weights = graph.weights(metric);
+        double[] forward = new double[V];
+        double[] backward = new double[V];
+        int[] parentEdges = new int[V];
+        int[] successorEdges = new int[V];
+        Arrays.fill(forward, INF);
+        Arrays.fill(backward, INF);
+        Arrays.fill(parentEdges, -1);
+        Arrays.fill(successorEdges, -1);
+        forward[source] = 0;
+        backward[target] = 0;
+
+        NodeHeap forwardHeap = new NodeHeap(V);
+        NodeHeap backwardHeap = new NodeHeap(V);
+        forwardHeap.push(source, 0);
+        backwardHeap.push(target, 0);
+
+        double best = INF;
+        int meeting = -1;
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()) {
+            if (forwardHeap.minKey() + backwardHeap.minKey() >= best)
+                break;
+
+            if (forwardHeap.minKey() <= backwardHeap.minKey()) {
+                int node = forwardHeap.pop();
+                for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                    int next = graph.target(edge);
+                    double distance = forward[node] + weights[edge];
+                    if (distance < forward[next]) {
+                        forward[next] = distance;
+                        parentEdges[next] = edge;
+                        forwardHeap.push(next, distance);
+
+                        if (distance + backward[next] < best) {
+                            best = distance + backward[next];
+                            meeting = next;
+                        }
+                    }
+                }
+            } else {
+                int node = backwardHeap.pop();
+                for (int position = graph.firstInEdge(node); position < graph.lastInEdge(node); position++) {
+                    int edge = graph.inEdge(position);
+                    int previous = graph.source(edge);
+                    double distance = backward[node] + weights[edge];
+                    if (distance < backward[previous]) {
+                        backward[previous] = distance;
+                        successorEdges[previous] = edge;
+                        backwardHeap.push(previous, distance);
+
+                        if (forward[previous] + distance < best) {
+                            best = forward[previous] + distance;
+                            meeting = previous;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (meeting == -1)
+            return new int[0];
+
+        int[] head = Dijkstra.pathTo(graph, parentEdges, source, meeting);
+        int tailLength = 0;
+        for (int node = meeting; node != target; node = graph.target(successorEdges[node]))
+            tailLength++;
+
+        int[] path = Arrays.copyOf(head, head.length + tailLength);
+        int node = meeting;
+        for (int i = head.length; i < path.length; i++) {
+            path[i] = successorEdges[node];
+            node = graph.target(path[i]);
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,231 @@
+package routing;
+
+import entities.Route;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Cheapest path search under {@link RouteConstraints}: maximum number of stops, airline allow and deny lists,
+ * and a cap on a secondary metric.
+ * <p>
+ * Routes of excluded airlines are removed up front. The search is then label-setting: a label is a partial
+ * itinerary ending at an airport with its cost, number of legs and budget spent, and several labels may be kept
+ * per airport as long as none of them dominates another (no more costly, no more legs, no more budget spent).
+ * Three backward searches from the destination give, for every airport, the lowest remaining cost, number of
+ * legs and budget. Labels that cannot reach the destination within the limits are pruned on creation, and
+ * labels are expanded by increasing cost plus lowest remaining cost, so the first label reaching the destination
+ * is the cheapest feasible itinerary.
+ */
+public final class ConstrainedSearch {
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    private final RouteGraph graph;
+    private final double[] weights;
+    private final double[] budgetWeights;
+    private final double maxLegs;
+    private final double budget;
+    private final boolean comparesLegs;
+    private final boolean comparesBudget;
+
+    private final double[] remainingCost;
+    private final double[] remainingLegs;
+    private final double[] remainingBudget;
+
+    private int labelCount;
+    private int[] labelNodes;
+    private int[] labelParents;
+    private int[] labelEdges;
+    private double[] labelCosts;
+    private int[] labelLegs;
+    private double[] labelBudgets;
+    private int[] nextSettled;
+    private final int[] firstSettled;
+
+    private int[] heap;
+    private int heapSize;
+
+    private ConstrainedSearch(RouteGraph graph, ToDoubleFunction<Route> metric, int target, RouteConstraints constraints) {
+        this.graph = graph;
+        this.comparesLegs = constraints.limitsStops();
+        this.comparesBudget = constraints.hasBudget();
+        this.maxLegs = comparesLegs ? constraints.maxStops() + 1.0 : INF;
+        this.budget = comparesBudget ? constraints.budget() : INF;
+
+        // Excluded routes get an infinite weight, which no search ever relaxes.
+        final int E = graph.edgeCount();
+        double[] metricWeights = graph.weights(metric);
+        double[] budgetMetricWeights = comparesBudget ? graph.weights(constraints.budgetMetric()) : new double[E];
+        this.weights = new double[E];
+        this.budgetWeights = new double[E];
+        double[] legs = new double[E];
+        for (int edge = 0; edge < E; edge++) {
+            boolean allowed = constraints.allowsAirline(graph.airlineId(edge)) && budgetMetricWeights[edge] <= budget;
+            weights[edge] = allowed ? metricWeights[edge] : INF;
+            budgetWeights[edge] = allowed ? budgetMetricWeights[edge] : INF;
+            legs[edge] = allowed ? 1 : INF;
+        }
+
+        final int V = graph.airportCount();
+        int[] successorEdges = new int[V];
+        this.remainingCost = Dijkstra.distancesTo(graph, weights, target, successorEdges);
+        this.remainingLegs = comparesLegs ? Dijkstra.distancesTo(graph, legs, target, successorEdges) : new double[V];
+        this.remainingBudget = comparesBudget ? Dijkstra.distancesTo(graph, budgetWeights, target, successorEdges) : new double[V];
+
+        int capacity = Math.max(16, V);
+        this.labelNodes = new int[capacity];
+        this.labelParents = new int[capacity];
+        this.labelEdges = new int[capacity];
+        this.labelCosts = new double[capacity];
+        this.labelLegs = new int[capacity];
+        this.labelBudgets = new double[capacity];
+        this.nextSettled = new int[capacity];
+        this.firstSettled = new int[V];
+        Arrays.fill(firstSettled, -1);
+        this.heap = new int[capacity];
+    }
+
+    /**
+     * Finds the cheapest path between two airports satisfying the constraints.
+     *
+     * @param graph       the route network
+     * @param metric      the metric to minimize
+     * @param source      index of the departure airport
+     * @param target      index of the destination airport
+     * @param constraints the restrictions on the path
+     * @return the edge slots of the path in travel order, or an empty array if no path satisfies the constraints
+     */
+    public static int[] findPath(RouteGraph graph, ToDoubleFunction<Route> metric, int source, int target,
+                                 RouteConstraints constraints) {
+        return new ConstrainedSearch(graph, metric, target, constraints).search(source, target);
+    }
+
+    private int[] search(int source, int target) {
+        if (!feasible(source, 0, 0))
+            return new int[0];
+
+        push(newLabel(source, -1, -1, 0, 0, 0));
+        while (heapSize > 0) {
+            int label = pop();
+            int node = labelNodes[label];
+            if (dominated(node, labelLegs[label], labelBudgets[label]))
+                continue;
+
+            if (node == target)
+                return pathOf(label);
+
+            nextSettled[label] = firstSettled[node];
+            firstSettled[node] = label;
+
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                if (weights[edge] == INF)
+                    continue;
+
+                int next = graph.target(edge);
+                int legs = labelLegs[label] + 1;
+                double spent = labelBudgets[label] + budgetWeights[edge];
+                if (feasible(next, legs, spent) && !dominated(next, legs, spent))
+                    push(newLabel(next, label, edge, labelCosts[label] + weights[edge], legs, spent));
+            }
+        }
+
+        return new int[0];
+    }
+
+    /**
+     * Checks whether the target can still be reached from an airport within the limits.
+     */
+    private boolean feasible(int node, int legs, double spent) {
+        return remainingCost[node] != INF
+                && legs + remainingLegs[node] <= maxLegs
+                && spent + remainingBudget[node] <= budget;
+    }
+
+    /**
+     * Checks whether a label already settled at an airport, hence no more costly, also has no more legs and
+     * no more budget spent.
+     */
+    private boolean dominated(int node, int legs, double spent) {
+        for (int settled = firstSettled[node]; settled != -1; settled = nextSettled[settled]) {
+            if ((!comparesLegs || labelLegs[settled] <= legs) && (!comparesBudget || labelBudgets[settled] <= spent))
+                return true;
+        }
+
+        return false;
+    }
+
+    private int[] pathOf(int label) {
+        int length = 0;
+        for (int l = label; labelParents[l] != -1; l = labelParents[l])
+            length++;
+
+        int[] path = new int[length];
+        for (int l = label; labelParents[l] != -1; l = labelParents[l])
+            path[--length] = labelEdges[l];
+
+        return path;
+    }
+
+    private int newLabel(int node, int parent, int edge, double cost, int legs, double spent) {
+        if (labelCount == labelNodes.length) {
+            int capacity = labelCount * 2;
+            labelNodes = Arrays.copyOf(labelNodes, capacity);
+            labelParents = Arrays.copyOf(labelParents, capacity);
+            labelEdges = Arrays.copyOf(labelEdges, capacity);
+            labelCosts = Arrays.copyOf(labelCosts, capacity);
+            labelLegs = Arrays.copyOf(labelLegs, capacity);
+            labelBudgets = Arrays.copyOf(labelBudgets, capacity);
+            nextSettled = Arrays.copyOf(nextSettled, capacity);
+        }
+
+        labelNodes[labelCount] = node;
+        labelParents[labelCount] = parent;
+        labelEdges[labelCount] = edge;
+        labelCosts[labelCount] = cost;
+        labelLegs[labelCount] = legs;
+        labelBudgets[labelCount] = spent;
+        nextSettled[labelCount] = -1;
+        return labelCount++;
+    }
+
+    private double keyOf(int label) {
+        return labelCosts[label] + remainingCost[labelNodes[label]];
+    }
+
+    private void push(int label) {
+        if (heapSize == heap.length)
+            heap = Arrays.copyOf(heap, heapSize * 2);
+
+        double key = keyOf(label);
+        int position = heapSize++;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (keyOf(heap[parent]) <= key)
+                break;
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = label;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        double key = keyOf(last);
+        int position = 0;
+        int half = heapSize >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < heapSize && keyOf(heap[child + 1]) < keyOf(heap[child]))
+                child++;
+            if (keyOf(heap[child]) >= key)
+                break;
+            heap[position] = heap[child];
+            position = child;
+        }
+        if (heapSize > 0)
+            heap[position] = last;
+
+        return top;
+    }
+}
@@ -0,0 +1,615 @@
+package routing;
+
+import entities.Route;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Contraction hierarchy over a {@link RouteGraph} for one metric, answering point-to-point queries while searching
+ * only a small part of the network.
+ * <p>
+ * Preprocessing contracts the airports one at a time, from the least to the most important. Contracting an airport
+ * removes it from the remaining network: every path through it that is the only cheapest way between two of its
+ * neighbours, as checked by a bounded local search (the witness search), is replaced by a shortcut arc, which also
+ * replaces any costlier arc between the same airports. The order is chosen greedily by edge difference (shortcuts
+ * added minus arcs removed), the number of already contracted neighbours and the depth in the hierarchy, which
+ * spreads the contraction evenly over the network and keeps hubs for the end. The rank of an airport is its position
+ * in it.
+ * <p>
+ * Networks with little hierarchy, such as hubs linked to each other by many long-haul routes, gain shortcuts faster
+ * than they lose airports. Contraction therefore stops once the remaining network has become
+ * {@link #MAX_CORE_DENSITY} times denser than the original one: the airports left form the core, ranked above all the
+ * others, and queries finish with a plain bidirectional search inside it.
+ * <p>
+ * A query is a bidirectional search in which both sides only follow arcs (routes or shortcuts) towards higher
+ * ranked airports, meeting at the highest ranked airport of the cheapest path. Airports reached more cheaply through
+ * a higher ranked airport are not expanded (stall-on-demand). Every shortcut keeps the two arcs it replaces, so the
+ * path is unpacked back to the original routes.
+ * <p>
+ * Instances are never modified and can be queried from several threads.
+ */
+public final class ContractionHierarchy {
+    private static final double INF = Double.POSITIVE_INFINITY;
+    /** Airports settled by a witness search before giving up and adding the shortcut. */
+    private static final int WITNESS_SEARCH_LIMIT = 500;
+    /** Airports settled by the witness searches estimating the shortcuts of an airport not yet contracted. */
+    private static final int SIMULATION_WITNESS_SEARCH_LIMIT = 50;
+    /** Arcs per remaining airport, relative to the original network, above which contraction stops. */
+    private static final double MAX_CORE_DENSITY = 1.5;
+
+    private final RouteGraph graph;
+    private final int[] ranks;
+    private final int shortcutCount;
+    private final int coreRank;
+    private final int coreSize;
+
+    private final int[] arcSources;
+    private final int[] arcTargets;
+    private final double[] arcWeights;
+    private final int[] arcEdges;
+    private final int[] arcFirstChildren;
+    private final int[] arcSecondChildren;
+
+    private final int[] upOffsets;
+    private final int[] upArcs;
+    private final int[] downOffsets;
+    private final int[] downArcs;
+
+    private ContractionHierarchy(RouteGraph graph, Contraction contraction) {
+        final int V = graph.airportCount();
+        final int A = contraction.arcCount;
+        this.graph = graph;
+        this.ranks = contraction.ranks;
+        this.shortcutCount = A - contraction.originalArcCount;
+        this.coreRank = contraction.coreRank;
+        this.coreSize = V - coreRank;
+
+        this.arcSources = Arrays.copyOf(contraction.sources, A);
+        this.arcTargets = Arrays.copyOf(contraction.targets, A);
+        this.arcWeights = Arrays.copyOf(contraction.weights, A);
+        this.arcEdges = Arrays.copyOf(contraction.edges, A);
+        this.arcFirstChildren = Arrays.copyOf(contraction.firstChildren, A);
+        this.arcSecondChildren = Arrays.copyOf(contraction.secondChildren, A);
+
+        // Upward arcs are scanned from their source by the forward search, downward arcs from their target by the
+        // backward search. Arcs between two core airports are both, as the core is searched in both directions.
+        this.upOffsets = new int[V + 1];
+        this.downOffsets = new int[V + 1];
+        for (int arc = 0; arc < A; arc++) {
+            boolean inCore = ranks[arcSources[arc]] >= coreRank && ranks[arcTargets[arc]] >= coreRank;
+            if (inCore || ranks[arcTargets[arc]] > ranks[arcSources[arc]])
+                upOffsets[arcSources[arc] + 1]++;
+            if (inCore || ranks[arcTargets[arc]] < ranks[arcSources[arc]])
+                downOffsets[arcTargets[arc] + 1]++;
+        }
+        for (int i = 0; i < V; i++) {
+            upOffsets[i + 1] += upOffsets[i];
+            downOffsets[i + 1] += downOffsets[i];
+        }
+
+        this.upArcs = new int[upOffsets[V]];
+        this.downArcs = new int[downOffsets[V]];
+        int[] upCursor = Arrays.copyOf(upOffsets, V);
+        int[] downCursor = Arrays.copyOf(downOffsets, V);
+        for (int arc = 0; arc < A; arc++) {
+            boolean inCore = ranks[arcSources[arc]] >= coreRank && ranks[arcTargets[arc]] >= coreRank;
+            if (inCore || ranks[arcTargets[arc]] > ranks[arcSources[arc]])
+                upArcs[upCursor[arcSources[arc]]++] = arc;
+            if (inCore || ranks[arcTargets[arc]] < ranks[arcSources[arc]])
+                downArcs[downCursor[arcTargets[arc]]++] = arc;
+        }
+    }
+
+    /**
+     * Contracts the whole network for a metric.
+     *
+     * @param graph  the route network
+     * @param metric the metric to minimize
+     * @return the hierarchy, ready to be queried
+     */
+    public static ContractionHierarchy build(RouteGraph graph, ToDoubleFunction<Route> metric) {
+        Contraction contraction = new Contraction(graph, graph.weights(metric));
+        contraction.run();
+        return new ContractionHierarchy(graph, contraction);
+    }
+
+    public RouteGraph graph() {
+        return graph;
+    }
+
+    public int shortcutCount() {
+        return shortcutCount;
+    }
+
+    /**
+     * @return the number of airports left uncontracted because the remaining network had become too dense
+     */
+    public int coreSize() {
+        return coreSize;
+    }
+
+    /**
+     * Finds the cheapest path between two airports.
+     *
+     * @param source index of the departure airport
+     * @param target index of the destination airport
+     * @return the edge slots of the path in travel order, or an empty array if the target is unreachable
+     */
+    public int[] findPath(int source, int target) {
+        if (source == target)
+            return new int[0];
+
+        final int V = graph.airportCount();
+        double[] forward = new double[V];
+        double[] backward = new double[V];
+        int[] parentArcs = new int[V];
+        int[] successorArcs = new int[V];
+        Arrays.fill(forward, INF);
+        Arrays.fill(backward, INF);
+        forward[source] = 0;
+        backward[target] = 0;
+
+        NodeHeap forwardHeap = new NodeHeap(V);
+        NodeHeap backwardHeap = new NodeHeap(V);
+        forwardHeap.push(source, 0);
+        backwardHeap.push(target, 0);
+
+        // Upward searches, stopping at the core airports.
+        int[] forwardCore = new int[coreSize];
+        int[] backwardCore = new int[coreSize];
+        int forwardCoreCount = 0;
+        int backwardCoreCount = 0;
+        double best = INF;
+        int meeting = -1;
+        while (!forwardHeap.isEmpty() || !backwardHeap.isEmpty()) {
+            boolean forwardTurn = backwardHeap.isEmpty()
+                    || (!forwardHeap.isEmpty() && forwardHeap.minKey() <= backwardHeap.minKey());
+            NodeHeap heap = forwardTurn ? forwardHeap : backwardHeap;
+            if (heap.minKey() >= best) {
+                heap.clear();
+                continue;
+            }
+
+            int node = heap.pop();
+            if (forward[node] + backward[node] < best) {
+                best = forward[node] + backward[node];
+                meeting = node;
+            }
+
+            if (ranks[node] >= coreRank) {
+                if (forwardTurn)
+                    forwardCore[forwardCoreCount++] = node;
+                else
+                    backwardCore[backwardCoreCount++] = node;
+            } else if (forwardTurn) {
+                if (stalled(node, forward, downOffsets, downArcs, arcSources))
+                    continue;
+
+                for (int i = upOffsets[node]; i < upOffsets[node + 1]; i++) {
+                    int arc = upArcs[i];
+                    int next = arcTargets[arc];
+                    double distance = forward[node] + arcWeights[arc];
+                    if (distance < forward[next]) {
+                        forward[next] = distance;
+                        parentArcs[next] = arc;
+                        forwardHeap.push(next, distance);
+                    }
+                }
+            } else {
+                if (stalled(node, backward, upOffsets, upArcs, arcTargets))
+                    continue;
+
+                for (int i = downOffsets[node]; i < downOffsets[node + 1]; i++) {
+                    int arc = downArcs[i];
+                    int previous = arcSources[arc];
+                    double distance = backward[node] + arcWeights[arc];
+                    if (distance < backward[previous]) {
+                        backward[previous] = distance;
+                        successorArcs[previous] = arc;
+                        backwardHeap.push(previous, distance);
+                    }
+                }
+            }
+        }
+
+        // Bidirectional search of the core, from the core airports reached by the upward searches. The core is not
+        // a hierarchy, so this one stops as soon as no path through both heaps can beat the best one found.
+        for (int i = 0; i < forwardCoreCount; i++)
+            forwardHeap.push(forwardCore[i], forward[forwardCore[i]]);
+        for (int i = 0; i < backwardCoreCount; i++)
+            backwardHeap.push(backwardCore[i], backward[backwardCore[i]]);
+        while (!forwardHeap.isEmpty() && !backwardHeap.isEmpty()
+                && forwardHeap.minKey() + backwardHeap.minKey() < best) {
+            if (forwardHeap.minKey() <= backwardHeap.minKey()) {
+                int node = forwardHeap.pop();
+                for (int i = upOffsets[node]; i < upOffsets[node + 1]; i++) {
+                    int arc = upArcs[i];
+                    int next = arcTargets[arc];
+                    double distance = forward[node] + arcWeights[arc];
+                    if (distance < forward[next]) {
+                        forward[next] = distance;
+                        parentArcs[next] = arc;
+                        forwardHeap.push(next, distance);
+                        if (distance + backward[next] < best) {
+                            best = distance + backward[next];
+                            meeting = next;
+                        }
+                    }
+                }
+            } else {
+                int node = backwardHeap.pop();
+                for (int i = downOffsets[node]; i < downOffsets[node + 1]; i++) {
+                    int arc = downArcs[i];
+                    int previous = arcSources[arc];
+                    double distance = backward[node] + arcWeights[arc];
+                    if (distance < backward[previous]) {
+                        backward[previous] = distance;
+                        successorArcs[previous] = arc;
+                        backwardHeap.push(previous, distance);
+                        if (distance + forward[previous] < best) {
+                            best = distance + forward[previous];
+                            meeting = previous;
+                        }
+                    }
+                }
+            }
+        }
+
+        if (meeting == -1)
+            return new int[0];
+
+        int headLength = 0;
+        for (int node = meeting; node != source; node = arcSources[parentArcs[node]])
+            headLength++;
+        int tailLength = 0;
+        for (int node = meeting; node != target; node = arcTargets[successorArcs[node]])
+            tailLength++;
+
+        int[] arcs = new int[headLength + tailLength];
+        int node = meeting;
+        for (int i = headLength - 1; i >= 0; i--, node = arcSources[arcs[i + 1]])
+            arcs[i] = parentArcs[node];
+        node = meeting;
+        for (int i = headLength; i < arcs.length; i++, node = arcTargets[arcs[i - 1]])
+            arcs[i] = successorArcs[node];
+
+        return unpack(arcs);
+    }
+
+    public List<Route> routes(int source, int target) {
+        return graph.routes(findPath(source, target));
+    }
+
+    /**
+     * Checks whether a higher ranked airport already reached by the same side of the search offers a cheaper way to
+     * an airport than the one it was settled with (stall-on-demand). Its distance is then not the cheapest, and
+     * nothing found by relaxing its arcs can be on the cheapest path.
+     *
+     * @param node      the settled airport
+     * @param distances the distances of this side of the search
+     * @param offsets   the offsets of the arcs coming down to each airport, in the direction of this side
+     * @param arcs      the arcs coming down to each airport
+     * @param ends      the higher ranked end of each arc
+     */
+    private boolean stalled(int node, double[] distances, int[] offsets, int[] arcs, int[] ends) {
+        for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+            int arc = arcs[i];
+            if (distances[ends[arc]] + arcWeights[arc] < distances[node])
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Replaces every shortcut of a path by the arcs it stands for, recursively, down to the original edges.
+     */
+    private int[] unpack(int[] arcs) {
+        int[] edges = new int[arcs.length];
+        int edgeCount = 0;
+        int[] stack = new int[16];
+        for (int arc : arcs) {
+            int top = 0;
+            stack[top++] = arc;
+            while (top > 0) {
+                int current = stack[--top];
+                if (arcEdges[current] != -1) {
+                    if (edgeCount == edges.length)
+                        edges = Arrays.copyOf(edges, edgeCount * 2);
+                    edges[edgeCount++] = arcEdges[current];
+                    continue;
+                }
+
+                if (top + 2 > stack.length)
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                stack[top++] = arcSecondChildren[current];
+                stack[top++] = arcFirstChildren[current];
+            }
+        }
+
+        return Arrays.copyOf(edges, edgeCount);
+    }
+
+    /** Mutable state of the preprocessing: the remaining network, its arcs, and the witness search buffers. */
+    private static final class Contraction {
+        private final int size;
+        private final int[] ranks;
+        private final int[] contractedNeighbours;
+        private final int[] depths;
+
+        private int arcCount;
+        private int originalArcCount;
+        private long liveArcCount;
+        private int coreRank;
+        private int[] sources;
+        private int[] targets;
+        private double[] weights;
+        private int[] edges;
+        private int[] firstChildren;
+        private int[] secondChildren;
+
+        private final int[][] outArcs;
+        private final int[] outDegrees;
+        private final int[][] inArcs;
+        private final int[] inDegrees;
+
+        private final double[] witnessDistances;
+        private final int[] touched;
+        private int touchedCount;
+        private final NodeHeap witnessHeap;
+
+        Contraction(RouteGraph graph, double[] edgeWeights) {
+            final int V = graph.airportCount();
+            this.size = V;
+            this.ranks = new int[V];
+            this.contractedNeighbours = new int[V];
+            this.depths = new int[V];
+
+            int capacity = Math.max(16, graph.edgeCount() * 2);
+            this.sources = new int[capacity];
+            this.targets = new int[capacity];
+            this.weights = new double[capacity];
+            this.edges = new int[capacity];
+            this.firstChildren = new int[capacity];
+            this.secondChildren = new int[capacity];
+
+            this.outArcs = new int[V][];
+            this.outDegrees = new int[V];
+            this.inArcs = new int[V][];
+            this.inDegrees = new int[V];
+            for (int i = 0; i < V; i++) {
+                outArcs[i] = new int[Math.max(4, graph.lastEdge(i) - graph.firstEdge(i))];
+                inArcs[i] = new int[Math.max(4, graph.lastInEdge(i) - graph.firstInEdge(i))];
+            }
+
+            this.witnessDistances = new double[V];
+            this.touched = new int[V];
+            this.witnessHeap = new NodeHeap(V);
+            Arrays.fill(witnessDistances, INF);
+
+            // Only the cheapest of the parallel routes between two airports matters, and loops never do.
+            int[] arcTo = new int[V];
+            Arrays.fill(arcTo, -1);
+            for (int from = 0; from < V; from++) {
+                int firstArc = arcCount;
+                for (int edge = graph.firstEdge(from); edge < graph.lastEdge(from); edge++) {
+                    int to = graph.target(edge);
+                    if (to == from)
+                        continue;
+
+                    int arc = arcTo[to];
+                    if (arc < firstArc)
+                        arcTo[to] = addArc(from, to, edgeWeights[edge], edge, -1, -1);
+                    else if (edgeWeights[edge] < weights[arc]) {
+                        weights[arc] = edgeWeights[edge];
+                        edges[arc] = edge;
+                    }
+                }
+            }
+            this.originalArcCount = arcCount;
+        }
+
+        void run() {
+            NodeHeap order = new NodeHeap(size);
+            for (int node = 0; node < size; node++)
+                order.push(node, priority(node));
+
+            int rank = 0;
+            double maxDensity = MAX_CORE_DENSITY * originalArcCount / size;
+            while (!order.isEmpty() && liveArcCount <= maxDensity * (size - rank)) {
+                int node = order.pop();
+
+                // Priorities only go stale when a neighbour is contracted: re-evaluate lazily.
+                double priority = priority(node);
+                if (!order.isEmpty() && priority > order.minKey()) {
+                    order.push(node, priority);
+                    continue;
+                }
+
+                contract(node, true, WITNESS_SEARCH_LIMIT);
+                ranks[node] = rank++;
+                liveArcCount -= outDegrees[node] + inDegrees[node];
+                for (int i = 0; i < outDegrees[node]; i++) {
+                    int next = targets[outArcs[node][i]];
+                    removeInArc(next, outArcs[node][i]);
+                    contractedNeighbours[next]++;
+                    depths[next] = Math.max(depths[next], depths[node] + 1);
+                }
+                for (int i = 0; i < inDegrees[node]; i++) {
+                    int previous = sources[inArcs[node][i]];
+                    removeOutArc(previous, inArcs[node][i]);
+                    contractedNeighbours[previous]++;
+                    depths[previous] = Math.max(depths[previous], depths[node] + 1);
+                }
+            }
+
+            // The airports left uncontracted form the core, ranked above all the others.
+            coreRank = rank;
+            while (!order.isEmpty())
+                ranks[order.pop()] = rank++;
+        }
+
+        /**
+         * Weighs the edge difference twice as much as the contracted neighbours and the depth, so that airports
+         * whose contraction would add more arcs than it removes are kept for later. The shortcuts are only estimated,
+         * with {@link #SIMULATION_WITNESS_SEARCH_LIMIT}, which can only overestimate them.
+         */
+        private double priority(int node) {
+            int removed = outDegrees[node] + inDegrees[node];
+            int shortcuts = contract(node, false, SIMULATION_WITNESS_SEARCH_LIMIT);
+            return 2.0 * (shortcuts - removed) + contractedNeighbours[node] + depths[node];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract an airport, and adds them if asked to.
+         *
+         * @param node        the airport to contract
+         * @param apply       whether to add the shortcuts or only count them
+         * @param searchLimit the airports settled by each witness search
+         * @return the number of shortcuts
+         */
+        private int contract(int node, boolean apply, int searchLimit) {
+            double maxOut = 0;
+            for (int i = 0; i < outDegrees[node]; i++)
+                maxOut = Math.max(maxOut, weights[outArcs[node][i]]);
+
+            int shortcuts = 0;
+            for (int i = 0; i < inDegrees[node]; i++) {
+                int inArc = inArcs[node][i];
+                int from = sources[inArc];
+
+                witnessSearch(from, node, weights[inArc] + maxOut, searchLimit);
+                for (int j = 0; j < outDegrees[node]; j++) {
+                    int outArc = outArcs[node][j];
+                    int to = targets[outArc];
+                    if (to == from)
+                        continue;
+
+                    double via = weights[inArc] + weights[outArc];
+                    if (witnessDistances[to] > via) {
+                        shortcuts++;
+                        if (witnessDistances[to] == INF)
+                            touched[touchedCount++] = to;
+                        witnessDistances[to] = via;
+                        if (apply)
+                            addShortcut(from, to, via, inArc, outArc);
+                    }
+                }
+            }
+            resetWitnessSearch();
+
+            return shortcuts;
+        }
+
+        /**
+         * Searches the remaining network from an airport without going through the airport being contracted,
+         * up to a maximum distance or a number of settled airports.
+         */
+        private void witnessSearch(int from, int excluded, double maxDistance, int searchLimit) {
+            resetWitnessSearch();
+            witnessDistances[from] = 0;
+            touched[touchedCount++] = from;
+            witnessHeap.push(from, 0);
+
+            int settled = 0;
+            while (!witnessHeap.isEmpty() && witnessHeap.minKey() <= maxDistance && settled++ < searchLimit) {
+                int node = witnessHeap.pop();
+                for (int i = 0; i < outDegrees[node]; i++) {
+                    int arc = outArcs[node][i];
+                    int next = targets[arc];
+                    if (next == excluded)
+                        continue;
+
+                    double distance = witnessDistances[node] + weights[arc];
+                    if (distance < witnessDistances[next]) {
+                        if (witnessDistances[next] == INF)
+                            touched[touchedCount++] = next;
+                        witnessDistances[next] = distance;
+                        witnessHeap.push(next, distance);
+                    }
+                }
+            }
+            witnessHeap.clear();
+        }
+
+        private void resetWitnessSearch() {
+            for (int i = 0; i < touchedCount; i++)
+                witnessDistances[touched[i]] = INF;
+            touchedCount = 0;
+        }
+
+        /**
+         * Adds a shortcut, replacing the arc already linking the same airports in the remaining network, if any.
+         * A witness search that gave up early can ask for a shortcut no cheaper than that arc: it is then dropped.
+         */
+        private void addShortcut(int from, int to, double weight, int firstChild, int secondChild) {
+            for (int i = 0; i < outDegrees[from]; i++) {
+                int arc = outArcs[from][i];
+                if (targets[arc] != to)
+                    continue;
+                if (weights[arc] <= weight)
+                    return;
+
+                removeOutArc(from, arc);
+                removeInArc(to, arc);
+                liveArcCount--;
+                break;
+            }
+
+            addArc(from, to, weight, -1, firstChild, secondChild);
+        }
+
+        private int addArc(int from, int to, double weight, int edge, int firstChild, int secondChild) {
+            if (arcCount == sources.length) {
+                int capacity = arcCount * 2;
+                sources = Arrays.copyOf(sources, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                edges = Arrays.copyOf(edges, capacity);
+                firstChildren = Arrays.copyOf(firstChildren, capacity);
+                secondChildren = Arrays.copyOf(secondChildren, capacity);
+            }
+
+            int arc = arcCount++;
+            liveArcCount++;
+            sources[arc] = from;
+            targets[arc] = to;
+            weights[arc] = weight;
+            edges[arc] = edge;
+            firstChildren[arc] = firstChild;
+            secondChildren[arc] = secondChild;
+
+            if (outDegrees[from] == outArcs[from].length)
+                outArcs[from] = Arrays.copyOf(outArcs[from], outDegrees[from] * 2);
+            outArcs[from][outDegrees[from]++] = arc;
+            if (inDegrees[to] == inArcs[to].length)
+                inArcs[to] = Arrays.copyOf(inArcs[to], inDegrees[to] * 2);
+            inArcs[to][inDegrees[to]++] = arc;
+
+            return arc;
+        }
+
+        /** Unlinks an arc from the remaining network; it stays in the hierarchy. */
+        private void removeOutArc(int node, int arc) {
+            int[] arcs = outArcs[node];
+            for (int i = 0; i < outDegrees[node]; i++) {
+                if (arcs[i] == arc) {
+                    arcs[i] = arcs[--outDegrees[node]];
+                    return;
+                }
+            }
+        }
+
+        private void removeInArc(int node, int arc) {
+            int[] arcs = inArcs[node];
+            for (int i = 0; i < inDegrees[node]; i++) {
+                if (arcs[i] == arc) {
+                    arcs[i] = arcs[--inDegrees[node]];
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package routing;
+
+import entities.Route;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Single-source shortest path search over a {@link RouteGraph}.
+ */
+public final class Dijkstra {
+    private Dijkstra() {
+    }
+
+    /**
+     * Finds the cheapest path between two airports, stopping as soon as the target is settled.
+     *
+     * @param graph  the route network
+     * @param metric the metric to minimize
+     * @param source index of the departure airport
+     * @param target index of the destination airport
+     * @return the edge slots of the path in travel order, or an empty array if the target is unreachable
+     */
+    public static int[] findPath(RouteGraph graph, ToDoubleFunction<Route> metric, int source, int target) {
+        return findPath(graph, graph.weights(metric), source, target);
+    }
+
+    static int[] findPath(RouteGraph graph, double[] weights, int source, int target) {
+        final int V = graph.airportCount();
+        double[] distances = new double[V];
+        int[] parentEdges = new int[V];
+        boolean[] settled = new boolean[V];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parentEdges, -1);
+        distances[source] = 0;
+
+        NodeHeap heap = new NodeHeap(V);
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            settled[node] = true;
+            if (node == target)
+                break;
+
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                int next = graph.target(edge);
+                if (settled[next])
+                    continue;
+
+                double distance = distances[node] + weights[edge];
+                if (distance < distances[next]) {
+                    distances[next] = distance;
+                    parentEdges[next] = edge;
+                    heap.push(next, distance);
+                }
+            }
+        }
+
+        return distances[target] == Double.POSITIVE_INFINITY ? new int[0] : pathTo(graph, parentEdges, source, target);
+    }
+
+    /**
+     * Computes the cheapest distance from every airport to a target, searching backwards over the reverse index.
+     *
+     * @param graph          the route network
+     * @param weights        the edge weights
+     * @param target         index of the destination airport
+     * @param successorEdges filled with the first edge of the cheapest path from every airport to the target,
+     *                       -1 for the target and for airports that cannot reach it
+     * @return the distance from every airport to the target, INF if it cannot reach it
+     */
+    static double[] distancesTo(RouteGraph graph, double[] weights, int target, int[] successorEdges) {
+        final int V = graph.airportCount();
+        double[] distances = new double[V];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(successorEdges, -1);
+        distances[target] = 0;
+
+        NodeHeap heap = new NodeHeap(V);
+        heap.push(target, 0);
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            for (int position = graph.firstInEdge(node); position < graph.lastInEdge(node); position++) {
+                int edge = graph.inEdge(position);
+                int previous = graph.source(edge);
+                double distance = distances[node] + weights[edge];
+                if (distance < distances[previous]) {
+                    distances[previous] = distance;
+                    successorEdges[previous] = edge;
+                    heap.push(previous, distance);
+                }
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * Walks the parent edges of a shortest path tree back from the target.
+     *
+     * @param graph       the route network
+     * @param parentEdges the edge used to reach every airport, -1 for the root and unreached airports
+     * @param source      index of the tree root
+     * @param target      index of the airport to reach
+     * @return the edge slots from source to target in travel order
+     */
+    static int[] pathTo(RouteGraph graph, int[] parentEdges, int source, int target) {
+        int length = 0;
+        for (int node = target; node != source; node = graph.source(parentEdges[node]))
+            length++;
+
+        int[] path = new int[length];
+        for (int node = target; node != source; node = graph.source(parentEdges[node]))
+            path[--length] = parentEdges[node];
+
+        return path;
+    }
+}
@@ -0,0 +1,220 @@
+package routing;
+
+import entities.Route;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Floyd-Warshall all-pairs shortest paths over a {@link RouteGraph}, either as the classic triple loop or as a
+ * cache-blocked version whose independent tiles run in parallel on a {@link ForkJoinPool}.
+ * Both variants work on flat row-major arrays and produce the same distances.
+ */
+public final class FloydWarshall {
+    public static final int DEFAULT_BLOCK_SIZE = 64;
+    private static final double INF = Double.POSITIVE_INFINITY;
+    /** Largest array the JVM can allocate, bounding the airports of a V * V matrix to 46340. */
+    private static final long MAX_MATRIX_CELLS = Integer.MAX_VALUE - 8;
+
+    private FloydWarshall() {
+    }
+
+    /**
+     * Applies the sequential Floyd-Warshall algorithm.
+     *
+     * @param graph  the route network
+     * @param metric the metric to minimize
+     * @return the distances and next hops of every airport pair
+     * @throws IllegalArgumentException if there are too many airports for V * V matrices
+     */
+    public static AllPairs apply(RouteGraph graph, ToDoubleFunction<Route> metric) {
+        double[] weights = graph.weights(metric);
+        final int V = graph.airportCount();
+        double[] d = new double[matrixCells(V)];
+        int[] next = new int[d.length];
+        initialize(graph, weights, d, next);
+
+        for (int k = 0; k < V; k++) {
+            final int rowK = k * V;
+            for (int i = 0; i < V; i++) {
+                final int rowI = i * V;
+                double ik = d[rowI + k];
+                if (ik == INF)
+                    continue;
+
+                int nextIK = next[rowI + k];
+                for (int j = 0; j < V; j++) {
+                    double candidate = ik + d[rowK + j];
+                    if (candidate < d[rowI + j]) {
+                        d[rowI + j] = candidate;
+                        next[rowI + j] = nextIK;
+                    }
+                }
+            }
+        }
+
+        return new AllPairs(graph, metric, weights, d, next);
+    }
+
+    /**
+     * Applies the blocked Floyd-Warshall algorithm on the common pool with {@link #DEFAULT_BLOCK_SIZE} tiles.
+     *
+     * @see #applyBlocked(RouteGraph, ToDoubleFunction, ForkJoinPool, int)
+     */
+    public static AllPairs applyBlocked(RouteGraph graph, ToDoubleFunction<Route> metric) {
+        return applyBlocked(graph, metric, ForkJoinPool.commonPool(), DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Applies the blocked Floyd-Warshall algorithm.
+     * <p>
+     * The matrix is split in tiles of {@code blockSize} rows and columns. For every diagonal tile {@code kb}:
+     * the diagonal tile is closed first, then the tiles sharing its row or column (which only depend on the
+     * diagonal tile), and finally every remaining tile (which only depends on the row and column tiles).
+     * Tiles of the same phase are independent and are computed in parallel.
+     *
+     * @param graph     the route network
+     * @param metric    the metric to minimize
+     * @param pool      the pool running the tiles of each phase
+     * @param blockSize the tile side, in airports
+     * @return the distances and next hops of every airport pair
+     * @throws IllegalArgumentException if the block size is not positive or there are too many airports for V * V
+     *                                  matrices
+     */
+    public static AllPairs applyBlocked(RouteGraph graph, ToDoubleFunction<Route> metric, ForkJoinPool pool, int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+
+        double[] weights = graph.weights(metric);
+        final int V = graph.airportCount();
+        double[] d = new double[matrixCells(V)];
+        int[] next = new int[d.length];
+        initialize(graph, weights, d, next);
+
+        Tiles tiles = new Tiles(d, next, V, blockSize);
+        final int blocks = (V + blockSize - 1) / blockSize;
+        for (int kb = 0; kb < blocks; kb++) {
+            final int diagonal = kb;
+            tiles.relax(kb, kb, kb);
+
+            // Row and column of the diagonal tile: 2 * (blocks - 1) tiles.
+            pool.invoke(new PhaseTask(0, 2 * (blocks - 1), t -> {
+                int other = t / 2 < diagonal ? t / 2 : t / 2 + 1;
+                if (t % 2 == 0)
+                    tiles.relax(diagonal, other, diagonal);
+                else
+                    tiles.relax(other, diagonal, diagonal);
+            }));
+
+            // Every remaining tile: (blocks - 1)^2 tiles.
+            pool.invoke(new PhaseTask(0, (blocks - 1) * (blocks - 1), t -> {
+                int ib = t / (blocks - 1);
+                int jb = t % (blocks - 1);
+                tiles.relax(ib < diagonal ? ib : ib + 1, jb < diagonal ? jb : jb + 1, diagonal);
+            }));
+        }
+
+        return new AllPairs(graph, metric, weights, d, next);
+    }
+
+    private static int matrixCells(int airports) {
+        long cells = (long) airports * airports;
+        if (cells > MAX_MATRIX_CELLS)
+            throw new IllegalArgumentException("Too many airports for all-pairs matrices: " + airports);
+
+        return (int) cells;
+    }
+
+    /**
+     * Fills the distance matrix with the cheapest direct route of every pair (0 on the diagonal, INF if there is
+     * none) and points the next hop of every directly connected pair to its destination.
+     */
+    private static void initialize(RouteGraph graph, double[] weights, double[] d, int[] next) {
+        final int V = graph.airportCount();
+        Arrays.fill(d, INF);
+        Arrays.fill(next, -1);
+        for (int i = 0; i < V; i++) {
+            d[i * V + i] = 0;
+            next[i * V + i] = i;
+
+            for (int edge = graph.firstEdge(i); edge < graph.lastEdge(i); edge++) {
+                int j = graph.target(edge);
+                if (i != j && weights[edge] < d[i * V + j]) {
+                    d[i * V + j] = weights[edge];
+                    next[i * V + j] = j;
+                }
+            }
+        }
+    }
+
+    /** Flat matrices split in square tiles. */
+    private record Tiles(double[] d, int[] next, int size, int blockSize) {
+        /**
+         * Relaxes tile (ib, jb) through every intermediate airport of block kb.
+         */
+        void relax(int ib, int jb, int kb) {
+            final int iEnd = Math.min((ib + 1) * blockSize, size);
+            final int jStart = jb * blockSize;
+            final int jEnd = Math.min(jStart + blockSize, size);
+            final int kEnd = Math.min((kb + 1) * blockSize, size);
+
+            for (int k = kb * blockSize; k < kEnd; k++) {
+                final int rowK = k * size;
+                for (int i = ib * blockSize; i < iEnd; i++) {
+                    final int rowI = i * size;
+                    double ik = d[rowI + k];
+                    if (ik == INF)
+                        continue;
+
+                    int nextIK = next[rowI + k];
+                    for (int j = jStart; j < jEnd; j++) {
+                        double candidate = ik + d[rowK + j];
+                        if (candidate < d[rowI + j]) {
+                            d[rowI + j] = candidate;
+                            next[rowI + j] = nextIK;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a range of independent tiles, splitting it in halves until a single tile is left.
+     * Tasks are never serialized, so the action working on the shared tiles is transient.
+     */
+    private static final class PhaseTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final transient TileAction action;
+
+        PhaseTask(int from, int to, TileAction action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from)
+                    action.run(from);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new PhaseTask(from, middle, action), new PhaseTask(middle, to, action));
+        }
+    }
+
+    @FunctionalInterface
+    private interface TileAction {
+        void run(int tile);
+    }
+}
@@ -0,0 +1,360 @@
+package routing;
+
+import entities.Airport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Route network and optional all-pairs results, saved to a compact binary file so they can be restored without
+ * reading the database again.
+ * <p>
+ * The file is a fixed header followed by a payload, all little-endian:
+ * <pre>
+ * header:  magic (int), format version (int), tables (int, bit set per RouteMetric ordinal),
+ *          CRC32 of the payload (int), payload length (long), creation time in epoch ms (long),
+ *          version of the data the network was read from (long)
+ * payload: airport count V (int), edge count E (int),
+ *          V airports: id (int), latitude and longitude (double, NaN if unknown), name length (int), UTF-8 name,
+ *          CSR offsets (V + 1 ints), targets, km, price, route IDs and airline IDs (E values each),
+ *          for every table: distances (V * V doubles) and next hops (V * V ints)
+ * </pre>
+ * Files are written in chunks through a {@link FileChannel} into a temporary file that replaces the old one
+ * atomically, and read back through {@link FileChannel#map}. A file with another magic number or format version,
+ * a truncated payload or a wrong checksum is rejected with an {@link IOException}, as is a file larger than
+ * {@link #MAX_BYTES}, which is never written. Whether the network still matches
+ * the data it was read from is up to the caller, by comparing {@link #dataVersion()}.
+ */
+public final class GraphSnapshot {
+    public static final int MAGIC = 0x52475350;
+    public static final int VERSION = 2;
+    private static final int HEADER_BYTES = 40;
+    private static final int CHUNK_BYTES = 1 << 20;
+    /**
+     * Largest snapshot file, mapped in a single region and copied to the heap when read. All-pairs tables take
+     * 12 * V * V bytes each, so they only fit up to about 9000 airports.
+     */
+    public static final long MAX_BYTES = 1L << 30;
+
+    private final RouteGraph graph;
+    private final Map<RouteMetric, AllPairs> tables;
+    private final long createdAt;
+    private final long dataVersion;
+
+    /**
+     * @param graph       the route network
+     * @param tables      all-pairs results computed on that exact graph, for {@link RouteMetric} metrics only;
+     *                    when several are given for the same metric, the last one is kept
+     * @param dataVersion the version of the data the network was read from, e.g. a counter bumped by every write
+     * @throws IllegalArgumentException if a result was computed on another graph or for another metric
+     */
+    public GraphSnapshot(RouteGraph graph, Collection<AllPairs> tables, long dataVersion) {
+        this(graph, new EnumMap<>(RouteMetric.class), System.currentTimeMillis(), dataVersion);
+        for (AllPairs table : tables) {
+            if (table.graph() != graph || !(table.metric() instanceof RouteMetric metric))
+                throw new IllegalArgumentException("Only RouteMetric results of the snapshot graph can be saved.");
+
+            this.tables.put(metric, table);
+        }
+    }
+
+    private GraphSnapshot(RouteGraph graph, Map<RouteMetric, AllPairs> tables, long createdAt, long dataVersion) {
+        this.graph = graph;
+        this.tables = tables;
+        this.createdAt = createdAt;
+        this.dataVersion = dataVersion;
+    }
+
+    public RouteGraph graph() {
+        return graph;
+    }
+
+    /**
+     * @param metric the metric of the result
+     * @return the saved all-pairs result of the metric, or null if it was not saved
+     */
+    public AllPairs allPairs(RouteMetric metric) {
+        return tables.get(metric);
+    }
+
+    public Collection<AllPairs> allPairs() {
+        return Collections.unmodifiableCollection(tables.values());
+    }
+
+    public long createdAt() {
+        return createdAt;
+    }
+
+    public long dataVersion() {
+        return dataVersion;
+    }
+
+    /**
+     * @return the size of the snapshot file, in bytes
+     */
+    public long fileSize() {
+        final long V = graph.airportCount();
+        final long E = graph.edgeCount();
+        long names = 0;
+        for (Airport airport : graph.airports())
+            names += airport.getName().getBytes(StandardCharsets.UTF_8).length;
+
+        return HEADER_BYTES + 2 * Integer.BYTES
+                + V * (2 * Integer.BYTES + 2 * Double.BYTES) + names
+                + (V + 1) * Integer.BYTES
+                + E * (3 * Integer.BYTES + 2 * Double.BYTES)
+                + tables.size() * V * V * (Double.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Writes the snapshot, replacing the file atomically once it is complete.
+     *
+     * @param path the snapshot file
+     * @throws IOException if the file cannot be written or would be larger than {@link #MAX_BYTES}
+     */
+    public void write(Path path) throws IOException {
+        final int V = graph.airportCount();
+        final int E = graph.edgeCount();
+        long fileSize = fileSize();
+        if (fileSize > MAX_BYTES)
+            throw new IOException("Snapshot of " + V + " airports, " + E + " routes and " + tables.size()
+                    + " all-pairs tables too large: " + fileSize + " bytes");
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try (ChunkWriter writer = new ChunkWriter(FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            writer.channel.position(HEADER_BYTES);
+
+            writer.putInt(V);
+            writer.putInt(E);
+            for (Airport airport : graph.airports()) {
+                byte[] name = airport.getName().getBytes(StandardCharsets.UTF_8);
+                writer.putInt(airport.getId());
+                writer.putDouble(airport.getLatitude() != null ? airport.getLatitude() : Double.NaN);
+                writer.putDouble(airport.getLongitude() != null ? airport.getLongitude() : Double.NaN);
+                writer.putInt(name.length);
+                writer.putBytes(name);
+            }
+
+            int[] offsets = new int[V + 1];
+            int[] targets = new int[E];
+            int[] routeIds = new int[E];
+            int[] airlineIds = new int[E];
+            for (int i = 0; i < V; i++)
+                offsets[i] = graph.firstEdge(i);
+            offsets[V] = E;
+            for (int edge = 0; edge < E; edge++) {
+                targets[edge] = graph.target(edge);
+                routeIds[edge] = graph.routeId(edge);
+                airlineIds[edge] = graph.airlineId(edge);
+            }
+            writer.putInts(offsets);
+            writer.putInts(targets);
+            writer.putDoubles(graph.weights(RouteMetric.KM));
+            writer.putDoubles(graph.weights(RouteMetric.PRICE));
+            writer.putInts(routeIds);
+            writer.putInts(airlineIds);
+
+            int flags = 0;
+            for (AllPairs table : tables.values()) {
+                flags |= 1 << ((RouteMetric) table.metric()).ordinal();
+                writer.putDoubles(table.distances);
+                writer.putInts(table.next);
+            }
+            writer.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(flags)
+                    .putInt((int) writer.crc.getValue())
+                    .putLong(writer.channel.position() - HEADER_BYTES)
+                    .putLong(createdAt)
+                    .putLong(dataVersion)
+                    .flip();
+            writer.channel.position(0);
+            while (header.hasRemaining())
+                writer.channel.write(header);
+            writer.channel.force(true);
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Maps a snapshot file and restores its network and all-pairs results.
+     *
+     * @param path the snapshot file
+     * @return the restored snapshot
+     * @throws java.nio.file.NoSuchFileException if there is no snapshot
+     * @throws IOException                      if the file cannot be read or is rejected
+     */
+    public static GraphSnapshot read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES || size > MAX_BYTES)
+                throw new IOException("Snapshot " + path + " rejected: unexpected size " + size);
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != MAGIC)
+                throw new IOException("Snapshot " + path + " rejected: not a route graph snapshot");
+
+            int version = buffer.getInt();
+            if (version != VERSION)
+                throw new IOException("Snapshot " + path + " rejected: format version " + version + ", expected " + VERSION);
+
+            int flags = buffer.getInt();
+            int checksum = buffer.getInt();
+            long payloadLength = buffer.getLong();
+            long createdAt = buffer.getLong();
+            long dataVersion = buffer.getLong();
+            if (payloadLength != size - HEADER_BYTES)
+                throw new IOException("Snapshot " + path + " rejected: truncated payload");
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(HEADER_BYTES, (int) payloadLength));
+            if ((int) crc.getValue() != checksum)
+                throw new IOException("Snapshot " + path + " rejected: checksum mismatch");
+
+            try {
+                return readPayload(buffer, flags, createdAt, dataVersion);
+            } catch (RuntimeException e) {
+                throw new IOException("Snapshot " + path + " rejected: malformed payload", e);
+            }
+        }
+    }
+
+    private static GraphSnapshot readPayload(ByteBuffer buffer, int flags, long createdAt, long dataVersion) {
+        final int V = buffer.getInt();
+        final int E = buffer.getInt();
+
+        List<Airport> airports = new ArrayList<>(V);
+        for (int i = 0; i < V; i++) {
+            int id = buffer.getInt();
+            double latitude = buffer.getDouble();
+            double longitude = buffer.getDouble();
+            byte[] name = new byte[buffer.getInt()];
+            buffer.get(name);
+            airports.add(new Airport(id, new String(name, StandardCharsets.UTF_8),
+                    Double.isNaN(latitude) ? null : latitude, Double.isNaN(longitude) ? null : longitude));
+        }
+
+        int[] offsets = getInts(buffer, V + 1);
+        int[] targets = getInts(buffer, E);
+        double[] km = getDoubles(buffer, E);
+        double[] price = getDoubles(buffer, E);
+        int[] routeIds = getInts(buffer, E);
+        int[] airlineIds = getInts(buffer, E);
+        RouteGraph graph = RouteGraph.fromCsr(airports, offsets, targets, km, price, routeIds, airlineIds);
+
+        Map<RouteMetric, AllPairs> tables = new EnumMap<>(RouteMetric.class);
+        for (RouteMetric metric : RouteMetric.values()) {
+            if ((flags & 1 << metric.ordinal()) == 0)
+                continue;
+
+            double[] distances = getDoubles(buffer, Math.multiplyExact(V, V));
+            int[] next = getInts(buffer, distances.length);
+            tables.put(metric, new AllPairs(graph, metric, graph.weights(metric), distances, next));
+        }
+
+        if (buffer.hasRemaining())
+            throw new IllegalStateException(buffer.remaining() + " unexpected trailing bytes");
+
+        return new GraphSnapshot(graph, tables, createdAt, dataVersion);
+    }
+
+    private static int[] getInts(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    private static double[] getDoubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        return values;
+    }
+
+    /** Writes through a fixed-size buffer, updating the payload checksum with every chunk written. */
+    private static final class ChunkWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final CRC32 crc = new CRC32();
+
+        ChunkWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(Integer.BYTES);
+            buffer.putInt(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(Double.BYTES);
+            buffer.putDouble(value);
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                ensure(1);
+                int count = Math.min(values.length - i, buffer.remaining());
+                buffer.put(values, i, count);
+                i += count;
+            }
+        }
+
+        void putInts(int[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                ensure(Integer.BYTES);
+                int count = Math.min(values.length - i, buffer.remaining() / Integer.BYTES);
+                buffer.asIntBuffer().put(values, i, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                i += count;
+            }
+        }
+
+        void putDoubles(double[] values) throws IOException {
+            for (int i = 0; i < values.length; ) {
+                ensure(Double.BYTES);
+                int count = Math.min(values.length - i, buffer.remaining() / Double.BYTES);
+                buffer.asDoubleBuffer().put(values, i, count);
+                buffer.position(buffer.position() + count * Double.BYTES);
+                i += count;
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes)
+                flush();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            crc.update(buffer);
+            buffer.rewind();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
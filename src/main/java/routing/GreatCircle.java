@@ -0,0 +1,31 @@
+package routing;
+
+/**
+ * Great-circle distance between two points of the Earth's surface.
+ */
+public final class GreatCircle {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private GreatCircle() {
+    }
+
+    /**
+     * Computes the haversine distance between two coordinates.
+     *
+     * @param latitude1  latitude of the first point, in degrees
+     * @param longitude1 longitude of the first point, in degrees
+     * @param latitude2  latitude of the second point, in degrees
+     * @param longitude2 longitude of the second point, in degrees
+     * @return the distance in km, NaN if any coordinate is NaN
+     */
+    public static double km(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double phi1 = Math.toRadians(latitude1);
+        double phi2 = Math.toRadians(latitude2);
+        double sinHalfDeltaPhi = Math.sin((phi2 - phi1) / 2);
+        double sinHalfDeltaLambda = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+
+        double a = sinHalfDeltaPhi * sinHalfDeltaPhi
+                + Math.cos(phi1) * Math.cos(phi2) * sinHalfDeltaLambda * sinHalfDeltaLambda;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
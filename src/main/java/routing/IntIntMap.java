@@ -0,0 +1,84 @@
+package routing;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from int keys to non-negative int values, without boxing.
+ * Keys are spread by a multiplicative hash and collisions are resolved by linear probing.
+ * The table is kept at most half full, so a lookup inspects about two slots on average.
+ */
+final class IntIntMap {
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param key the key to look up
+     * @return the value of the key, or -1 if it is absent
+     */
+    int get(int key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int value = values[slot];
+            if (value == EMPTY || keys[slot] == key)
+                return value;
+        }
+    }
+
+    /**
+     * Associates a value with a key, replacing the previous value if any.
+     *
+     * @param key   the key
+     * @param value the value, which must not be negative
+     */
+    void put(int key, int value) {
+        if (value < 0)
+            throw new IllegalArgumentException("Negative value: " + value);
+
+        if (2 * (size + 1) > values.length)
+            rehash(values.length * 2);
+
+        int slot = slot(key);
+        while (values[slot] != EMPTY && keys[slot] != key)
+            slot = (slot + 1) & mask;
+
+        if (values[slot] == EMPTY)
+            size++;
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, EMPTY);
+        mask = capacity - 1;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != EMPTY)
+                put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
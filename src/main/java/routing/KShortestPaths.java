@@ -0,0 +1,199 @@
+package routing;
+
+import entities.Route;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Yen's k shortest loopless paths between two airports.
+ * <p>
+ * Every candidate is built from a root (a prefix of an already accepted path) and a spur path searched from the
+ * last airport of the root while the root airports and the already used continuations are blocked.
+ * The shortest path tree towards the destination is computed once, backwards, and reused by every spur search:
+ * its distances are an exact (hence admissible and consistent) A* heuristic for the blocked graph, and when the
+ * tree path from the spur airport is not blocked it is taken directly without searching at all.
+ */
+public final class KShortestPaths {
+    private final RouteGraph graph;
+    private final double[] weights;
+    private final int target;
+
+    private final double[] distancesToTarget;
+    private final int[] successorEdges;
+
+    private final boolean[] blockedNodes;
+    private final boolean[] blockedEdges;
+    private final double[] distances;
+    private final int[] parentEdges;
+    private final NodeHeap heap;
+
+    private KShortestPaths(RouteGraph graph, double[] weights, int target) {
+        this.graph = graph;
+        this.weights = weights;
+        this.target = target;
+
+        final int V = graph.airportCount();
+        this.successorEdges = new int[V];
+        this.distancesToTarget = Dijkstra.distancesTo(graph, weights, target, successorEdges);
+
+        this.blockedNodes = new boolean[V];
+        this.blockedEdges = new boolean[graph.edgeCount()];
+        this.distances = new double[V];
+        this.parentEdges = new int[V];
+        this.heap = new NodeHeap(V);
+    }
+
+    /**
+     * Finds up to k loopless paths between two airports in ascending cost order.
+     *
+     * @param graph  the route network
+     * @param metric the metric to minimize
+     * @param source index of the departure airport
+     * @param target index of the destination airport
+     * @param k      the maximum number of paths to return
+     * @return the edge slots of every path in travel order, cheapest path first
+     */
+    public static List<int[]> findPaths(RouteGraph graph, ToDoubleFunction<Route> metric, int source, int target, int k) {
+        if (k < 1)
+            throw new IllegalArgumentException("k must be positive: " + k);
+
+        return new KShortestPaths(graph, graph.weights(metric), target).search(source, k);
+    }
+
+    private List<int[]> search(int source, int k) {
+        List<int[]> accepted = new ArrayList<>();
+        if (distancesToTarget[source] == Double.POSITIVE_INFINITY)
+            return accepted;
+
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(Comparator.comparingDouble(Candidate::cost));
+        Set<Candidate> seen = new HashSet<>();
+        int[] first = spurPath(source);
+        accepted.add(first);
+        seen.add(new Candidate(first, 0));
+
+        while (accepted.size() < k) {
+            int[] previous = accepted.getLast();
+            double rootCost = 0;
+            int spurNode = source;
+
+            for (int i = 0; i < previous.length; i++) {
+                for (int[] path : accepted) {
+                    if (path.length > i && Arrays.equals(path, 0, i, previous, 0, i))
+                        blockedEdges[path[i]] = true;
+                }
+
+                int[] spur = spurPath(spurNode);
+                if (spur != null) {
+                    int[] candidatePath = new int[i + spur.length];
+                    System.arraycopy(previous, 0, candidatePath, 0, i);
+                    System.arraycopy(spur, 0, candidatePath, i, spur.length);
+
+                    Candidate candidate = new Candidate(candidatePath, rootCost + costOf(spur));
+                    if (seen.add(candidate))
+                        candidates.add(candidate);
+                }
+
+                for (int[] path : accepted) {
+                    if (path.length > i)
+                        blockedEdges[path[i]] = false;
+                }
+                blockedNodes[spurNode] = true;
+                rootCost += weights[previous[i]];
+                spurNode = graph.target(previous[i]);
+            }
+
+            Arrays.fill(blockedNodes, false);
+            if (candidates.isEmpty())
+                break;
+            accepted.add(candidates.poll().edges());
+        }
+
+        return accepted;
+    }
+
+    /**
+     * Finds the cheapest path from an airport to the target avoiding the blocked airports and edges.
+     *
+     * @param from index of the spur airport
+     * @return the edge slots of the spur path, or null if the target cannot be reached
+     */
+    private int[] spurPath(int from) {
+        int[] treePath = treePath(from);
+        if (treePath != null)
+            return treePath;
+
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parentEdges, -1);
+        distances[from] = 0;
+        heap.clear();
+        heap.push(from, distancesToTarget[from]);
+
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            if (node == target)
+                return Dijkstra.pathTo(graph, parentEdges, from, target);
+
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                int next = graph.target(edge);
+                if (blockedEdges[edge] || blockedNodes[next] || distancesToTarget[next] == Double.POSITIVE_INFINITY)
+                    continue;
+
+                double distance = distances[node] + weights[edge];
+                if (distance < distances[next]) {
+                    distances[next] = distance;
+                    parentEdges[next] = edge;
+                    heap.push(next, distance + distancesToTarget[next]);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Follows the shortest path tree from an airport to the target.
+     *
+     * @param from index of the spur airport
+     * @return the edge slots of the tree path, or null if it goes through a blocked airport or edge
+     */
+    private int[] treePath(int from) {
+        if (distancesToTarget[from] == Double.POSITIVE_INFINITY)
+            return null;
+
+        int length = 0;
+        for (int node = from; node != target; node = graph.target(successorEdges[node])) {
+            int edge = successorEdges[node];
+            if (blockedEdges[edge] || blockedNodes[graph.target(edge)])
+                return null;
+            length++;
+        }
+
+        int[] path = new int[length];
+        int node = from;
+        for (int i = 0; i < length; i++, node = graph.target(path[i - 1]))
+            path[i] = successorEdges[node];
+
+        return path;
+    }
+
+    private double costOf(int[] path) {
+        double cost = 0;
+        for (int edge : path)
+            cost += weights[edge];
+
+        return cost;
+    }
+
+    private record Candidate(int[] edges, double cost) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Candidate other && Arrays.equals(edges, other.edges);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(edges);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package routing;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of airport indexes keyed by a tentative cost.
+ * Each airport is present at most once, lowering its key moves it up in place instead of
+ * inserting a duplicate entry, so the heap never holds more than V elements.
+ */
+final class NodeHeap {
+    private final int[] heap;
+    private final int[] positions;
+    private final double[] keys;
+    private int size;
+
+    NodeHeap(int capacity) {
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int node) {
+        return positions[node] != -1;
+    }
+
+    double minKey() {
+        return keys[heap[0]];
+    }
+
+    /**
+     * Inserts the node, or lowers its key if it is already queued with a higher one.
+     *
+     * @param node the airport index
+     * @param key  the new key
+     */
+    void push(int node, double key) {
+        int position = positions[node];
+        if (position == -1) {
+            position = size++;
+            heap[position] = node;
+            positions[node] = position;
+        } else if (key >= keys[node]) {
+            return;
+        }
+
+        keys[node] = key;
+        siftUp(position);
+    }
+
+    /**
+     * Removes the node with the lowest key.
+     *
+     * @return the airport index
+     */
+    int pop() {
+        int node = heap[0];
+        positions[node] = -1;
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            positions[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return node;
+    }
+
+    /** Empties the heap so it can be reused by another search over the same graph. */
+    void clear() {
+        for (int i = 0; i < size; i++)
+            positions[heap[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int node = heap[position];
+        double key = keys[node];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentNode = heap[parent];
+            if (keys[parentNode] <= key)
+                break;
+            heap[position] = parentNode;
+            positions[parentNode] = position;
+            position = parent;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+
+    private void siftDown(int position) {
+        int node = heap[position];
+        double key = keys[node];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && keys[heap[right]] < keys[heap[child]])
+                child = right;
+            if (keys[heap[child]] >= key)
+                break;
+            heap[position] = heap[child];
+            positions[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = node;
+        positions[node] = position;
+    }
+}
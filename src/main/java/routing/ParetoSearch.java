@@ -0,0 +1,155 @@
+package routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bi-criteria (km, price) label-setting search returning every non-dominated itinerary between two airports.
+ * <p>
+ * A label is a partial itinerary ending at an airport, with its accumulated distance and price. Labels are
+ * settled in lexicographic (km, price) order, so every label settled at an airport has a distance no lower
+ * than the ones settled there before: a new label is only non-dominated if it is strictly cheaper than all
+ * of them. That reduces the dominance check to the lowest settled price of each airport. Labels that the
+ * destination already dominates are pruned as well, since extending them can only increase both criteria.
+ */
+public final class ParetoSearch {
+    private final RouteGraph graph;
+    private final double[] km;
+    private final double[] price;
+
+    private int labelCount;
+    private int[] labelNodes;
+    private int[] labelParents;
+    private int[] labelEdges;
+    private double[] labelKm;
+    private double[] labelPrice;
+
+    private int[] heap;
+    private int heapSize;
+
+    private ParetoSearch(RouteGraph graph) {
+        this.graph = graph;
+        this.km = graph.weights(RouteMetric.KM);
+        this.price = graph.weights(RouteMetric.PRICE);
+
+        int capacity = Math.max(16, graph.airportCount());
+        this.labelNodes = new int[capacity];
+        this.labelParents = new int[capacity];
+        this.labelEdges = new int[capacity];
+        this.labelKm = new double[capacity];
+        this.labelPrice = new double[capacity];
+        this.heap = new int[capacity];
+    }
+
+    /**
+     * Finds the Pareto frontier of (km, price) itineraries between two airports.
+     *
+     * @param graph  the route network
+     * @param source index of the departure airport
+     * @param target index of the destination airport
+     * @return the edge slots of every non-dominated itinerary, from the shortest to the cheapest
+     */
+    public static List<int[]> findFrontier(RouteGraph graph, int source, int target) {
+        return new ParetoSearch(graph).search(source, target);
+    }
+
+    private List<int[]> search(int source, int target) {
+        double[] settledPrice = new double[graph.airportCount()];
+        Arrays.fill(settledPrice, Double.POSITIVE_INFINITY);
+
+        List<int[]> frontier = new ArrayList<>();
+        push(newLabel(source, -1, -1, 0, 0));
+        while (heapSize > 0) {
+            int label = pop();
+            int node = labelNodes[label];
+            double labelPriceValue = labelPrice[label];
+            if (labelPriceValue >= settledPrice[node] || labelPriceValue >= settledPrice[target])
+                continue;
+
+            settledPrice[node] = labelPriceValue;
+            if (node == target) {
+                frontier.add(pathOf(label));
+                continue;
+            }
+
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                int next = graph.target(edge);
+                double nextPrice = labelPriceValue + price[edge];
+                if (nextPrice < settledPrice[next] && nextPrice < settledPrice[target])
+                    push(newLabel(next, label, edge, labelKm[label] + km[edge], nextPrice));
+            }
+        }
+
+        return frontier;
+    }
+
+    private int[] pathOf(int label) {
+        int length = 0;
+        for (int l = label; labelParents[l] != -1; l = labelParents[l])
+            length++;
+
+        int[] path = new int[length];
+        for (int l = label; labelParents[l] != -1; l = labelParents[l])
+            path[--length] = labelEdges[l];
+
+        return path;
+    }
+
+    private int newLabel(int node, int parent, int edge, double labelKmValue, double labelPriceValue) {
+        if (labelCount == labelNodes.length) {
+            int capacity = labelCount * 2;
+            labelNodes = Arrays.copyOf(labelNodes, capacity);
+            labelParents = Arrays.copyOf(labelParents, capacity);
+            labelEdges = Arrays.copyOf(labelEdges, capacity);
+            labelKm = Arrays.copyOf(labelKm, capacity);
+            labelPrice = Arrays.copyOf(labelPrice, capacity);
+        }
+
+        labelNodes[labelCount] = node;
+        labelParents[labelCount] = parent;
+        labelEdges[labelCount] = edge;
+        labelKm[labelCount] = labelKmValue;
+        labelPrice[labelCount] = labelPriceValue;
+        return labelCount++;
+    }
+
+    private boolean precedes(int a, int b) {
+        return labelKm[a] < labelKm[b] || (labelKm[a] == labelKm[b] && labelPrice[a] < labelPrice[b]);
+    }
+
+    private void push(int label) {
+        if (heapSize == heap.length)
+            heap = Arrays.copyOf(heap, heapSize * 2);
+
+        int position = heapSize++;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!precedes(label, heap[parent]))
+                break;
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = label;
+    }
+
+    private int pop() {
+        int top = heap[0];
+        int last = heap[--heapSize];
+        int position = 0;
+        int half = heapSize >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < heapSize && precedes(heap[child + 1], heap[child]))
+                child++;
+            if (!precedes(heap[child], last))
+                break;
+            heap[position] = heap[child];
+            position = child;
+        }
+        if (heapSize > 0)
+            heap[position] = last;
+
+        return top;
+    }
+}
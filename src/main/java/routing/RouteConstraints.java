@@ -0,0 +1,66 @@
+package routing;
+
+import entities.Route;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Restrictions on the itineraries returned by a {@link ConstrainedSearch}.
+ *
+ * @param maxStops        the maximum number of intermediate airports, {@link #UNLIMITED_STOPS} for no limit
+ * @param allowedAirlines the only airlines that may be flown, null to allow every airline
+ * @param deniedAirlines  the airlines that may not be flown
+ * @param budgetMetric    the metric capped by the budget (e.g. RouteMetric.PRICE), null for no budget
+ * @param budget          the maximum total of the budget metric over the itinerary
+ */
+public record RouteConstraints(int maxStops, Set<Integer> allowedAirlines, Set<Integer> deniedAirlines,
+                               ToDoubleFunction<Route> budgetMetric, double budget) {
+    public static final int UNLIMITED_STOPS = Integer.MAX_VALUE;
+
+    public RouteConstraints {
+        if (maxStops < 0)
+            throw new IllegalArgumentException("Max stops must not be negative: " + maxStops);
+        if (budgetMetric != null && !(budget >= 0))
+            throw new IllegalArgumentException("Budget must not be negative: " + budget);
+
+        allowedAirlines = allowedAirlines == null ? null : Set.copyOf(allowedAirlines);
+        deniedAirlines = deniedAirlines == null ? Set.of() : Set.copyOf(deniedAirlines);
+    }
+
+    /**
+     * @return constraints allowing every itinerary
+     */
+    public static RouteConstraints none() {
+        return new RouteConstraints(UNLIMITED_STOPS, null, Set.of(), null, Double.POSITIVE_INFINITY);
+    }
+
+    public RouteConstraints withMaxStops(int maxStops) {
+        return new RouteConstraints(maxStops, allowedAirlines, deniedAirlines, budgetMetric, budget);
+    }
+
+    public RouteConstraints withAllowedAirlines(Collection<Integer> airlineIds) {
+        return new RouteConstraints(maxStops, Set.copyOf(airlineIds), deniedAirlines, budgetMetric, budget);
+    }
+
+    public RouteConstraints withDeniedAirlines(Collection<Integer> airlineIds) {
+        return new RouteConstraints(maxStops, allowedAirlines, Set.copyOf(airlineIds), budgetMetric, budget);
+    }
+
+    public RouteConstraints withBudget(ToDoubleFunction<Route> budgetMetric, double budget) {
+        return new RouteConstraints(maxStops, allowedAirlines, deniedAirlines, budgetMetric, budget);
+    }
+
+    public boolean allowsAirline(int airlineId) {
+        return (allowedAirlines == null || allowedAirlines.contains(airlineId)) && !deniedAirlines.contains(airlineId);
+    }
+
+    public boolean limitsStops() {
+        return maxStops != UNLIMITED_STOPS;
+    }
+
+    public boolean hasBudget() {
+        return budgetMetric != null;
+    }
+}
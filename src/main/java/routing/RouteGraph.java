@@ -0,0 +1,448 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+
+import java.util.*;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Immutable route network stored in compressed sparse row (CSR) form.
+ * <p>
+ * Airports are identified by a dense index aligned with the airport list the graph was built from.
+ * The routes leaving airport {@code i} occupy the edge slots {@code [offsets[i], offsets[i + 1])},
+ * and every per-edge array (targets, weights, original route data) is indexed by that slot.
+ * Parallel routes between the same airports are kept as separate edges.
+ * <p>
+ * A reverse index lists, for every airport, the edge slots arriving at it in {@code [inOffsets[i], inOffsets[i + 1])},
+ * so searches can also run backwards from a destination.
+ */
+public final class RouteGraph {
+    private final List<Airport> airports;
+    private final IntIntMap airportIndexes;
+    private final IntIntMap routeEdges;
+
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] targets;
+    private final double[] km;
+    private final double[] price;
+    private final int[] routeIds;
+    private final int[] airlineIds;
+
+    private final int[] inOffsets;
+    private final int[] inEdges;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double kmPerGreatCircleKm;
+    private final boolean allCoordinates;
+
+    private RouteGraph(List<Airport> airports, IntIntMap airportIndexes, int[] offsets, int[] sources,
+                       int[] targets, double[] km, double[] price, int[] routeIds, int[] airlineIds) {
+        this.airports = airports;
+        this.airportIndexes = airportIndexes;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.targets = targets;
+        this.km = km;
+        this.price = price;
+        this.routeIds = routeIds;
+        this.airlineIds = airlineIds;
+
+        this.routeEdges = new IntIntMap(routeIds.length);
+        for (int edge = 0; edge < routeIds.length; edge++)
+            routeEdges.put(routeIds[edge], edge);
+
+        final int V = airports.size();
+        this.inOffsets = new int[V + 1];
+        for (int target : targets)
+            inOffsets[target + 1]++;
+        for (int i = 0; i < V; i++)
+            inOffsets[i + 1] += inOffsets[i];
+
+        this.inEdges = new int[targets.length];
+        int[] slot = Arrays.copyOf(inOffsets, V);
+        for (int edge = 0; edge < targets.length; edge++)
+            inEdges[slot[targets[edge]]++] = edge;
+
+        this.latitudes = new double[V];
+        this.longitudes = new double[V];
+        for (int i = 0; i < V; i++) {
+            Airport airport = airports.get(i);
+            latitudes[i] = airport.getLatitude() != null ? airport.getLatitude() : Double.NaN;
+            longitudes[i] = airport.getLongitude() != null ? airport.getLongitude() : Double.NaN;
+        }
+
+        boolean allCoordinates = true;
+        for (int i = 0; i < V; i++)
+            allCoordinates &= hasCoordinates(i);
+        this.allCoordinates = allCoordinates;
+
+        double ratio = 1;
+        for (int edge = 0; edge < targets.length; edge++) {
+            double greatCircle = greatCircleKm(sources[edge], targets[edge]);
+            if (greatCircle > 0)
+                ratio = Math.min(ratio, km[edge] / greatCircle);
+        }
+        this.kmPerGreatCircleKm = ratio;
+    }
+
+    /**
+     * Builds the graph in a single pass over the routes.
+     * Routes whose departure or destination airport is not in the list are ignored.
+     *
+     * @param airports the airports of the network, their position is used as the airport index
+     * @param routes   the routes connecting the airports
+     * @return the CSR graph
+     */
+    public static RouteGraph build(List<Airport> airports, List<Route> routes) {
+        Builder builder = new Builder(airports, routes.size());
+        for (Route route : routes)
+            builder.add(route);
+
+        return builder.build();
+    }
+
+    /**
+     * Recreates a graph from arrays already laid out in CSR order, e.g. read back from a {@link GraphSnapshot}.
+     * The arrays are used as is and must not be modified afterwards.
+     */
+    static RouteGraph fromCsr(List<Airport> airports, int[] offsets, int[] targets, double[] km, double[] price,
+                              int[] routeIds, int[] airlineIds) {
+        int[] sources = new int[targets.length];
+        for (int i = 0; i < airports.size(); i++)
+            Arrays.fill(sources, offsets[i], offsets[i + 1], i);
+
+        List<Airport> airportList = List.copyOf(airports);
+        return new RouteGraph(airportList, indexAirports(airportList), offsets, sources, targets, km, price,
+                routeIds, airlineIds);
+    }
+
+    private static IntIntMap indexAirports(List<Airport> airports) {
+        IntIntMap airportIndexes = new IntIntMap(airports.size());
+        for (int i = 0; i < airports.size(); i++)
+            airportIndexes.put(airports.get(i).getId(), i);
+
+        return airportIndexes;
+    }
+
+    public int airportCount() {
+        return airports.size();
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public List<Airport> airports() {
+        return airports;
+    }
+
+    public Airport airport(int index) {
+        return airports.get(index);
+    }
+
+    /**
+     * Checks whether the graph was built over the given airports, in the same order.
+     *
+     * @param airports the airports to compare with
+     * @return true if every airport index resolves to the same airport ID
+     */
+    public boolean hasAirports(List<Airport> airports) {
+        if (airports.size() != this.airports.size())
+            return false;
+
+        for (int i = 0; i < airports.size(); i++) {
+            if (airports.get(i).getId() != this.airports.get(i).getId())
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks whether the graph was built over the given airports, in any order.
+     *
+     * @param airports the airports to compare with
+     * @return true if both have the same airport IDs
+     */
+    public boolean hasSameAirports(Collection<Airport> airports) {
+        if (airports.size() != this.airports.size())
+            return false;
+
+        for (Airport airport : airports) {
+            if (indexOf(airport.getId()) == -1)
+                return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Resolves the dense index of an airport.
+     *
+     * @param airportId the ID of the airport
+     * @return the index of the airport, or -1 if it is not part of the graph
+     */
+    public int indexOf(int airportId) {
+        return airportIndexes.get(airportId);
+    }
+
+    /**
+     * Resolves the edge slot of a route.
+     *
+     * @param routeId the ID of the route
+     * @return the edge slot of the route, or -1 if it is not part of the graph
+     */
+    public int edgeOf(int routeId) {
+        return routeEdges.get(routeId);
+    }
+
+    public int firstEdge(int airportIndex) {
+        return offsets[airportIndex];
+    }
+
+    public int lastEdge(int airportIndex) {
+        return offsets[airportIndex + 1];
+    }
+
+    public int firstInEdge(int airportIndex) {
+        return inOffsets[airportIndex];
+    }
+
+    public int lastInEdge(int airportIndex) {
+        return inOffsets[airportIndex + 1];
+    }
+
+    /**
+     * Returns the edge slot stored at a position of the reverse index.
+     *
+     * @param position a position between {@link #firstInEdge} and {@link #lastInEdge} of an airport
+     * @return the edge slot of a route arriving at that airport
+     */
+    public int inEdge(int position) {
+        return inEdges[position];
+    }
+
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    public int target(int edge) {
+        return targets[edge];
+    }
+
+    public int routeId(int edge) {
+        return routeIds[edge];
+    }
+
+    public int airlineId(int edge) {
+        return airlineIds[edge];
+    }
+
+    public boolean hasCoordinates(int airportIndex) {
+        return !Double.isNaN(latitudes[airportIndex]) && !Double.isNaN(longitudes[airportIndex]);
+    }
+
+    /**
+     * Checks whether every airport has coordinates. Otherwise, the routes through the airports without coordinates
+     * are not bounded by {@link #kmPerGreatCircleKm()}, and scaled great-circle distances may overestimate the km of
+     * a path through them.
+     *
+     * @return true if great-circle distances bound the km of every path
+     */
+    public boolean hasAllCoordinates() {
+        return allCoordinates;
+    }
+
+    /**
+     * Computes the great-circle distance between two airports.
+     *
+     * @param from index of the first airport
+     * @param to   index of the second airport
+     * @return the distance in km, NaN if either airport has no coordinates
+     */
+    public double greatCircleKm(int from, int to) {
+        return GreatCircle.km(latitudes[from], longitudes[from], latitudes[to], longitudes[to]);
+    }
+
+    /**
+     * Returns the lowest ratio between the km of a route and the great-circle distance between its airports,
+     * capped at 1. Scaling great-circle distances by it never overestimates the km of any route, even if the
+     * stored distances are shorter than the geodesic.
+     *
+     * @return the ratio, between 0 and 1
+     */
+    public double kmPerGreatCircleKm() {
+        return kmPerGreatCircleKm;
+    }
+
+    /**
+     * Returns the weight of every edge slot for the given metric.
+     * {@link RouteMetric} constants are served from the stored arrays, any other function is evaluated once per edge.
+     * The returned array is shared and must not be modified.
+     *
+     * @param metric the metric to read
+     * @return the weights indexed by edge slot
+     */
+    public double[] weights(ToDoubleFunction<Route> metric) {
+        if (metric == RouteMetric.KM)
+            return km;
+        if (metric == RouteMetric.PRICE)
+            return price;
+
+        double[] weights = new double[edgeCount()];
+        for (int edge = 0; edge < weights.length; edge++)
+            weights[edge] = metric.applyAsDouble(route(edge));
+
+        return weights;
+    }
+
+    /**
+     * Finds the cheapest edge between two airports for the given weights.
+     *
+     * @param from    index of the departure airport
+     * @param to      index of the destination airport
+     * @param weights the edge weights
+     * @return the edge slot, or -1 if there is no direct route
+     */
+    public int cheapestEdge(int from, int to, double[] weights) {
+        int best = -1;
+        for (int edge = offsets[from]; edge < offsets[from + 1]; edge++) {
+            if (targets[edge] == to && (best == -1 || weights[edge] < weights[best]))
+                best = edge;
+        }
+
+        return best;
+    }
+
+    /**
+     * Recreates the route stored in an edge slot.
+     *
+     * @param edge the edge slot
+     * @return a Route with the original ID, airports, airline, distance and price
+     */
+    public Route route(int edge) {
+        return new Route(
+                routeIds[edge],
+                airports.get(sources[edge]).getId(),
+                airports.get(targets[edge]).getId(),
+                airlineIds[edge],
+                (int) km[edge],
+                price[edge]
+        );
+    }
+
+    /**
+     * Recreates the routes of a path.
+     *
+     * @param edges the edge slots of the path, in travel order
+     * @return the routes of the path, in travel order
+     */
+    public List<Route> routes(int[] edges) {
+        List<Route> routes = new ArrayList<>(edges.length);
+        for (int edge : edges)
+            routes.add(route(edge));
+
+        return routes;
+    }
+
+    /**
+     * Accumulates routes into growable primitive columns and lays them out in CSR order on {@link #build()}.
+     */
+    public static final class Builder {
+        private final List<Airport> airports;
+        private final IntIntMap airportIndexes;
+
+        private int size;
+        private int[] sources;
+        private int[] targets;
+        private double[] km;
+        private double[] price;
+        private int[] routeIds;
+        private int[] airlineIds;
+
+        public Builder(List<Airport> airports, int expectedRoutes) {
+            this.airports = List.copyOf(airports);
+            this.airportIndexes = indexAirports(this.airports);
+
+            int capacity = Math.max(expectedRoutes, 16);
+            this.sources = new int[capacity];
+            this.targets = new int[capacity];
+            this.km = new double[capacity];
+            this.price = new double[capacity];
+            this.routeIds = new int[capacity];
+            this.airlineIds = new int[capacity];
+        }
+
+        /**
+         * Adds a route to the graph being built.
+         *
+         * @param route the route to add
+         * @return true if both airports of the route are part of the graph
+         */
+        public boolean add(Route route) {
+            int from = airportIndexes.get(route.getIdFrom());
+            int to = airportIndexes.get(route.getIdTo());
+            if (from == -1 || to == -1)
+                return false;
+
+            if (size == sources.length)
+                grow();
+
+            sources[size] = from;
+            targets[size] = to;
+            km[size] = route.getKm();
+            price[size] = route.getPrice();
+            routeIds[size] = route.getId();
+            airlineIds[size] = route.getAirlineId();
+            size++;
+            return true;
+        }
+
+        private void grow() {
+            int capacity = sources.length * 2;
+            sources = Arrays.copyOf(sources, capacity);
+            targets = Arrays.copyOf(targets, capacity);
+            km = Arrays.copyOf(km, capacity);
+            price = Arrays.copyOf(price, capacity);
+            routeIds = Arrays.copyOf(routeIds, capacity);
+            airlineIds = Arrays.copyOf(airlineIds, capacity);
+        }
+
+        /**
+         * Sorts the added routes by departure airport (counting sort, stable) into CSR arrays.
+         *
+         * @return the immutable graph
+         */
+        public RouteGraph build() {
+            final int V = airports.size();
+            int[] offsets = new int[V + 1];
+            for (int i = 0; i < size; i++)
+                offsets[sources[i] + 1]++;
+            for (int i = 0; i < V; i++)
+                offsets[i + 1] += offsets[i];
+
+            int[] slot = Arrays.copyOf(offsets, V);
+            int[] csrSources = new int[size];
+            int[] csrTargets = new int[size];
+            double[] csrKm = new double[size];
+            double[] csrPrice = new double[size];
+            int[] csrRouteIds = new int[size];
+            int[] csrAirlineIds = new int[size];
+            for (int i = 0; i < size; i++) {
+                int edge = slot[sources[i]]++;
+                csrSources[edge] = sources[i];
+                csrTargets[edge] = targets[i];
+                csrKm[edge] = km[i];
+                csrPrice[edge] = price[i];
+                csrRouteIds[edge] = routeIds[i];
+                csrAirlineIds[edge] = airlineIds[i];
+            }
+
+            return new RouteGraph(airports, airportIndexes, offsets, csrSources, csrTargets,
+                    csrKm, csrPrice, csrRouteIds, csrAirlineIds);
+        }
+    }
+}
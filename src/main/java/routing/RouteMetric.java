@@ -0,0 +1,25 @@
+package routing;
+
+import entities.Route;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Route metrics stored as primitive weight arrays inside {@link RouteGraph}.
+ * Passing one of these constants instead of a method reference lets the routing algorithms
+ * read the weights directly, without evaluating a function per edge.
+ */
+public enum RouteMetric implements ToDoubleFunction<Route> {
+    KM {
+        @Override
+        public double applyAsDouble(Route route) {
+            return route.getKm();
+        }
+    },
+    PRICE {
+        @Override
+        public double applyAsDouble(Route route) {
+            return route.getPrice();
+        }
+    }
+}
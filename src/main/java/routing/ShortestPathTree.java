@@ -0,0 +1,98 @@
+package routing;
+
+import entities.Route;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Cheapest paths from one airport to many destinations, read from a single Dijkstra search.
+ * The search stops as soon as every requested destination is settled, instead of exploring the whole network.
+ */
+public final class ShortestPathTree {
+    private final RouteGraph graph;
+    private final int source;
+    private final double[] distances;
+    private final int[] parentEdges;
+
+    private ShortestPathTree(RouteGraph graph, int source, double[] distances, int[] parentEdges) {
+        this.graph = graph;
+        this.source = source;
+        this.distances = distances;
+        this.parentEdges = parentEdges;
+    }
+
+    /**
+     * Searches the cheapest paths from an airport until every destination is settled.
+     *
+     * @param graph   the route network
+     * @param metric  the metric to minimize
+     * @param source  index of the departure airport
+     * @param targets indexes of the destinations, duplicates allowed
+     * @return the tree, whose paths are exact for the requested destinations
+     */
+    public static ShortestPathTree compute(RouteGraph graph, ToDoubleFunction<Route> metric, int source, int[] targets) {
+        final int V = graph.airportCount();
+        double[] weights = graph.weights(metric);
+        double[] distances = new double[V];
+        int[] parentEdges = new int[V];
+        boolean[] settled = new boolean[V];
+        boolean[] wanted = new boolean[V];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        Arrays.fill(parentEdges, -1);
+        distances[source] = 0;
+
+        int remaining = 0;
+        for (int target : targets) {
+            if (!wanted[target]) {
+                wanted[target] = true;
+                remaining++;
+            }
+        }
+
+        NodeHeap heap = new NodeHeap(V);
+        heap.push(source, 0);
+        while (!heap.isEmpty() && remaining > 0) {
+            int node = heap.pop();
+            settled[node] = true;
+            if (wanted[node])
+                remaining--;
+
+            for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+                int next = graph.target(edge);
+                if (settled[next])
+                    continue;
+
+                double distance = distances[node] + weights[edge];
+                if (distance < distances[next]) {
+                    distances[next] = distance;
+                    parentEdges[next] = edge;
+                    heap.push(next, distance);
+                }
+            }
+        }
+
+        return new ShortestPathTree(graph, source, distances, parentEdges);
+    }
+
+    public int source() {
+        return source;
+    }
+
+    public double distance(int target) {
+        return distances[target];
+    }
+
+    /**
+     * @param target index of a requested destination
+     * @return the edge slots of the path in travel order, or an empty array if the destination is unreachable
+     */
+    public int[] path(int target) {
+        return distances[target] == Double.POSITIVE_INFINITY ? new int[0] : Dijkstra.pathTo(graph, parentEdges, source, target);
+    }
+
+    public List<Route> routes(int target) {
+        return graph.routes(path(target));
+    }
+}
@@ -0,0 +1,104 @@
+package services;
+
+import entities.Airport;
+import entities.Route;
+import org.apache.logging.log4j.Level;
+import routing.AllPairs;
+import routing.GraphSnapshot;
+import routing.RouteGraph;
+import routing.RouteMetric;
+import utils.LoggerService;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide all-pairs results, one per metric, computed on first use and then maintained incrementally.
+ * <p>
+ * Every committed create, update or delete of a {@link Route} or an {@link Airport} through {@link MyBatis} applies
+ * the difference between the network of the cached results and the one {@link GraphSnapshotStore} brought up to date
+ * with the write, with {@link AllPairs#update(RouteGraph)}, instead of discarding them. Results whose airports moved
+ * are dropped and computed again on next use.
+ * Results are restored from and saved to the {@link GraphSnapshotStore} snapshot along with the network.
+ */
+public final class AllPairsCache {
+    private static final Map<RouteMetric, AllPairs> RESULTS = new EnumMap<>(RouteMetric.class);
+
+    static {
+        // Registered after the store, which has applied the write to its network by the time these listeners run.
+        GraphSnapshotStore.watchChanges();
+        MyBatis.addChangeListener(Route.class, _ -> onNetworkChanged());
+        MyBatis.addChangeListener(Airport.class, _ -> onNetworkChanged());
+    }
+
+    private AllPairsCache() {
+    }
+
+    /**
+     * Returns the all-pairs result of a metric, computing it with the given mode if it is not cached.
+     *
+     * @param metric the metric to minimize
+     * @param mode   {@link RoutingMode#FLOYD_WARSHALL} or {@link RoutingMode#PARALLEL_FLOYD_WARSHALL}
+     * @return the up-to-date all-pairs result
+     */
+    public static synchronized AllPairs get(RouteMetric metric, RoutingMode mode) {
+        GraphSnapshot snapshot = GraphSnapshotStore.load();
+        refresh(snapshot.graph());
+        AllPairs result = RESULTS.get(metric);
+        if (result == null) {
+            result = snapshot.allPairs(metric);
+            if (result == null) {
+                result = RouteService.applyAllPairs(snapshot.graph(), metric, mode);
+                GraphSnapshotStore.save(List.of(result));
+            }
+            RESULTS.put(metric, result);
+        }
+
+        return result;
+    }
+
+    public static synchronized void invalidate() {
+        RESULTS.clear();
+    }
+
+    private static synchronized void onNetworkChanged() {
+        if (RESULTS.isEmpty())
+            return;
+
+        try {
+            refresh(GraphSnapshotStore.load().graph());
+        } catch (RuntimeException e) {
+            RESULTS.clear();
+            LoggerService.log(Level.WARN, "All-pairs results discarded: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Brings the cached results up to date with a network, then saves them with it.
+     */
+    private static void refresh(RouteGraph graph) {
+        boolean updated = false;
+        for (Iterator<Map.Entry<RouteMetric, AllPairs>> entries = RESULTS.entrySet().iterator(); entries.hasNext(); ) {
+            Map.Entry<RouteMetric, AllPairs> entry = entries.next();
+            if (entry.getValue().graph() == graph)
+                continue;
+
+            RouteMetric metric = entry.getKey();
+            AllPairs result = entry.getValue().update(graph);
+            if (result == null) {
+                entries.remove();
+                LoggerService.log(Level.DEBUG, "Airports changed, all-pairs results dropped for " + metric);
+            } else {
+                entry.setValue(result);
+                updated = true;
+            }
+        }
+
+        if (updated) {
+            GraphSnapshotStore.save(RESULTS.values());
+            LoggerService.log(Level.DEBUG, "All-pairs results updated for " + RESULTS.keySet());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package services;
+
+import entities.Airport;
+import entities.Route;
+import org.apache.logging.log4j.Level;
+import routing.RouteGraph;
+import routing.ShortestPathTree;
+import utils.LoggerService;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Resolves many {@link RouteQuery route queries} at once over a single snapshot of the network.
+ * <p>
+ * The routes are fetched and the graph is built once per instance. Queries sharing their departure airport and
+ * metric are grouped so that one single-source search serves all their destinations, and the groups are resolved
+ * in parallel, each on its own virtual thread.
+ */
+public final class BatchRouteService {
+    private final RouteGraph graph;
+
+    public BatchRouteService(List<Airport> airports) {
+        this(RouteService.buildGraph(airports));
+    }
+
+    /**
+     * Reuses an already built network, e.g. to resolve several batches over the same snapshot.
+     *
+     * @param graph The route network.
+     */
+    public BatchRouteService(RouteGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Resolves every query in parallel.
+     * <p>
+     * Results are streamed in completion order, so consuming the stream blocks until the next result is ready.
+     * Queries on airports missing from the network, or whose search failed, get an empty itinerary (the reason is logged).
+     *
+     * @param queries The queries to resolve.
+     * @return A stream of exactly one result per query.
+     */
+    public Stream<RouteQuery.Result> getRoutesBetweenAirports(Collection<RouteQuery> queries) {
+        BlockingQueue<RouteQuery.Result> results = new LinkedBlockingQueue<>();
+        Map<Origin, List<RouteQuery>> groups = new LinkedHashMap<>();
+        for (RouteQuery query : queries) {
+            int startIndex = graph.indexOf(query.start().getId());
+            if (startIndex == -1 || graph.indexOf(query.end().getId()) == -1) {
+                LoggerService.log(Level.ERROR, "The airport list does not contain specified airports.");
+                results.add(new RouteQuery.Result(query, List.of()));
+                continue;
+            }
+
+            groups.computeIfAbsent(new Origin(startIndex, query.metric()), _ -> new ArrayList<>()).add(query);
+        }
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        groups.forEach((origin, group) -> executor.execute(() -> resolve(origin, group, results)));
+        executor.shutdown();
+
+        return Stream.generate(() -> take(results)).limit(queries.size());
+    }
+
+    /**
+     * Resolves the queries of one origin with a single search, and publishes their results.
+     */
+    private void resolve(Origin origin, List<RouteQuery> group, BlockingQueue<RouteQuery.Result> results) {
+        List<RouteQuery.Result> resolved = new ArrayList<>(group.size());
+        try {
+            int[] targets = group.stream().mapToInt(query -> graph.indexOf(query.end().getId())).toArray();
+            ShortestPathTree tree = ShortestPathTree.compute(graph, origin.metric(), origin.startIndex(), targets);
+            for (int i = 0; i < targets.length; i++)
+                resolved.add(new RouteQuery.Result(group.get(i), tree.routes(targets[i])));
+        } catch (RuntimeException e) {
+            LoggerService.log(Level.ERROR, "Route queries from " + graph.airport(origin.startIndex()).getName()
+                    + " failed: " + e.getMessage());
+            resolved.clear();
+            group.forEach(query -> resolved.add(new RouteQuery.Result(query, List.of())));
+        }
+
+        results.addAll(resolved);
+    }
+
+    private static RouteQuery.Result take(BlockingQueue<RouteQuery.Result> results) {
+        try {
+            return results.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private record Origin(int startIndex, ToDoubleFunction<Route> metric) {
+    }
+}
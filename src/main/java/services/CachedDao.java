@@ -0,0 +1,176 @@
+package services;
+
+import entities.Entity;
+import entities.annotations.Column;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Process-wide read-through cache of a reference table, such as the airports or the airlines, which rarely change.
+ * <p>
+ * Reads are served from an immutable snapshot of the whole table, filtered in memory by {@link Column} name like the
+ * mappers do. The snapshot is reloaded on the first read after it expires, after {@link #DEFAULT_TTL} by default, or
+ * after a committed write to the table through any {@link MyBatis} DAO, including the writes through this one, which
+ * bumps the version of the table. Writes are delegated to a {@link MyBatis} DAO. The returned lists are immutable and
+ * their rows shared by every reader, so they must not be modified.
+ * <p>
+ * String filters compare ignoring case, as the default MySQL collation does, and numbers by value.
+ */
+public final class CachedDao<T extends Entity> implements IDao<T> {
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+
+    private static final Map<Class<? extends Entity>, CachedDao<?>> CACHES = new ConcurrentHashMap<>();
+
+    private final Class<T> clazz;
+    private final long ttlNanos;
+    private final ColumnFilters<T> filters;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot<T> snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private CachedDao(Class<T> clazz, Duration ttl) {
+        this.clazz = clazz;
+        this.ttlNanos = ttl.toNanos();
+        this.filters = new ColumnFilters<>(clazz);
+
+        MyBatis.addChangeListener(clazz, _ -> invalidate());
+    }
+
+    /**
+     * Returns the cache of a table, created with {@link #DEFAULT_TTL} on first call.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Entity> CachedDao<T> of(Class<T> clazz) {
+        return (CachedDao<T>) CACHES.computeIfAbsent(clazz, _ -> new CachedDao<>(clazz, DEFAULT_TTL));
+    }
+
+    /**
+     * Drops the snapshot, so that the next read reloads the table.
+     */
+    public void invalidate() {
+        version.incrementAndGet();
+        invalidations.increment();
+    }
+
+    @Override
+    public List<T> get(Map<String, Object> fieldValueFilters) {
+        if (fieldValueFilters.isEmpty())
+            return rows();
+
+        Predicate<T> matcher = filters.matcher(fieldValueFilters);
+        return rows().stream().filter(matcher).toList();
+    }
+
+    @Override
+    public List<T> getPage(Map<String, Object> fieldValueFilters, int afterId, int limit) {
+        Predicate<T> matcher = filters.matcher(fieldValueFilters);
+        return rows().stream()
+                .filter(row -> row.getId() > afterId)
+                .filter(matcher)
+                .limit(limit)
+                .toList();
+    }
+
+    @Override
+    public Stream<T> stream(Map<String, Object> fieldValueFilters) {
+        Predicate<T> matcher = filters.matcher(fieldValueFilters);
+        return rows().stream().filter(matcher);
+    }
+
+    @Override
+    public int create(T t) {
+        return write(dao -> dao.create(t));
+    }
+
+    @Override
+    public int createAll(Collection<? extends T> ts, int chunkSize) {
+        return write(dao -> dao.createAll(ts, chunkSize));
+    }
+
+    @Override
+    public int update(Map<String, Object> newValues, Map<String, Object> fieldValueFilters) {
+        return write(dao -> dao.update(newValues, fieldValueFilters));
+    }
+
+    @Override
+    public int delete(Map<String, Object> fieldValueFilters) {
+        return write(dao -> dao.delete(fieldValueFilters));
+    }
+
+    public Stats stats() {
+        Snapshot<T> current = snapshot;
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum(), current == null ? 0 : current.rows().size());
+    }
+
+    /**
+     * Returns the snapshot rows, reloading them if the snapshot is missing, outdated or expired. Concurrent readers
+     * of an unusable snapshot wait for a single reload.
+     */
+    private List<T> rows() {
+        Snapshot<T> current = snapshot;
+        if (isFresh(current)) {
+            hits.increment();
+            return current.rows();
+        }
+
+        synchronized (this) {
+            current = snapshot;
+            if (isFresh(current)) {
+                hits.increment();
+                return current.rows();
+            }
+
+            misses.increment();
+            long loadedVersion = version.get();
+            try (MyBatis<T> dao = new MyBatis<>(clazz)) {
+                current = new Snapshot<>(List.copyOf(dao.get()), loadedVersion, System.nanoTime());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            snapshot = current;
+            return current.rows();
+        }
+    }
+
+    private boolean isFresh(Snapshot<T> current) {
+        return current != null && current.version() == version.get()
+                && System.nanoTime() - current.loadedAtNanos() < ttlNanos;
+    }
+
+    private int write(Function<MyBatis<T>, Integer> operation) {
+        try (MyBatis<T> dao = new MyBatis<>(clazz)) {
+            return operation.apply(dao);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param hits          the reads served from the snapshot
+     * @param misses        the reads that loaded the table
+     * @param invalidations the writes that dropped the snapshot
+     * @param rows          the number of rows in the snapshot
+     */
+    public record Stats(long hits, long misses, long invalidations, int rows) {
+        public double hitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    private record Snapshot<T>(List<T> rows, long version, long loadedAtNanos) {
+    }
+}
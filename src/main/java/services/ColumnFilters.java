@@ -0,0 +1,67 @@
+package services;
+
+import entities.Entity;
+import entities.annotations.Column;
+
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates the column filters of {@link IDao} in memory, on the {@link Column} fields of an entity.
+ * <p>
+ * String filters compare ignoring case, as the default MySQL collation does, and numbers by value.
+ */
+final class ColumnFilters<T extends Entity> {
+    private final Class<T> clazz;
+    private final Map<String, Field> columns = new HashMap<>();
+
+    ColumnFilters(Class<T> clazz) {
+        this.clazz = clazz;
+        for (Field field : clazz.getDeclaredFields()) {
+            Column column = field.getAnnotation(Column.class);
+            if (column != null) {
+                field.setAccessible(true);
+                columns.put(column.name(), field);
+            }
+        }
+    }
+
+    /**
+     * @param fieldValueFilters the values to match, by column name
+     * @return a predicate accepting the rows that match every filter
+     * @throws IllegalArgumentException if a filter names an unknown column
+     */
+    Predicate<T> matcher(Map<String, Object> fieldValueFilters) {
+        Map<Field, Object> filters = new HashMap<>();
+        fieldValueFilters.forEach((column, value) -> {
+            Field field = columns.get(column);
+            if (field == null)
+                throw new IllegalArgumentException("Unknown column of " + clazz.getSimpleName() + ": " + column);
+            filters.put(field, value);
+        });
+
+        return row -> {
+            for (Map.Entry<Field, Object> filter : filters.entrySet()) {
+                try {
+                    if (!matches(filter.getKey().get(row), filter.getValue()))
+                        return false;
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return true;
+        };
+    }
+
+    private static boolean matches(Object value, Object filter) {
+        if (value == null || filter == null)
+            return false;
+        if (value instanceof Number number && filter instanceof Number expected)
+            return number.doubleValue() == expected.doubleValue();
+        if (value instanceof String string && filter instanceof String expected)
+            return string.equalsIgnoreCase(expected);
+        return value.toString().equals(filter.toString());
+    }
+}
@@ -0,0 +1,88 @@
+package services;
+
+import entities.Airport;
+import entities.Route;
+import org.apache.logging.log4j.Level;
+import routing.ContractionHierarchy;
+import routing.RouteGraph;
+import routing.RouteMetric;
+import utils.LoggerService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Process-wide contraction hierarchies, one per metric, preprocessed on first use.
+ * <p>
+ * Every committed change to the routes or airports through {@link MyBatis} schedules a rebuild of the cached
+ * hierarchies on a background thread, on the network {@link GraphSnapshotStore} brought up to date with the change.
+ * Queries keep being answered by the previous hierarchies until the new ones replace them, and changes committed
+ * while a rebuild is pending are folded into it.
+ */
+public final class ContractionHierarchyCache {
+    private static final Map<RouteMetric, Built> HIERARCHIES = new ConcurrentHashMap<>();
+    private static final AtomicBoolean REBUILD_PENDING = new AtomicBoolean();
+    private static final ExecutorService REBUILDER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "contraction-hierarchy-rebuild");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Registered after the store and the itinerary cache, so that a rebuild finds both the network and the version
+        // up to date with the change that scheduled it.
+        GraphSnapshotStore.watchChanges();
+        ItineraryCache.version();
+        MyBatis.addChangeListener(Route.class, _ -> rebuildInBackground());
+        MyBatis.addChangeListener(Airport.class, _ -> rebuildInBackground());
+    }
+
+    private ContractionHierarchyCache() {
+    }
+
+    /**
+     * Returns the hierarchy of a metric, preprocessing it if it is not cached.
+     *
+     * @param metric the metric to minimize
+     * @return the latest hierarchy built for the metric, with the version of the network it was built on, which is
+     * older than {@link ItineraryCache#version()} while a rebuild is pending
+     */
+    public static Built get(RouteMetric metric) {
+        return HIERARCHIES.computeIfAbsent(metric, m -> {
+            long version = ItineraryCache.version();
+            return new Built(ContractionHierarchy.build(GraphSnapshotStore.load().graph(), m), version);
+        });
+    }
+
+    /**
+     * Schedules a rebuild of every cached hierarchy, unless one is already pending.
+     */
+    public static void rebuildInBackground() {
+        if (!HIERARCHIES.isEmpty() && REBUILD_PENDING.compareAndSet(false, true))
+            REBUILDER.execute(ContractionHierarchyCache::rebuild);
+    }
+
+    private static void rebuild() {
+        REBUILD_PENDING.set(false);
+        try {
+            long version = ItineraryCache.version();
+            RouteGraph graph = GraphSnapshotStore.load().graph();
+            for (RouteMetric metric : HIERARCHIES.keySet())
+                HIERARCHIES.put(metric, new Built(ContractionHierarchy.build(graph, metric), version));
+            LoggerService.log(Level.DEBUG, "Contraction hierarchies rebuilt for " + HIERARCHIES.keySet());
+        } catch (RuntimeException e) {
+            HIERARCHIES.clear();
+            LoggerService.log(Level.WARN, "Contraction hierarchies discarded: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param hierarchy the preprocessed hierarchy
+     * @param version   the {@link ItineraryCache#version()} read before loading the network it was built on
+     */
+    public record Built(ContractionHierarchy hierarchy, long version) {
+    }
+}
@@ -11,6 +11,8 @@ import java.util.List;
 import java.util.Map;
 
 public class CrudMenu {
+    private static final int PAGE_SIZE = 20;
+
     public static <T extends Entity> void handleCrudOperation(Menu operation) {
         @SuppressWarnings("unchecked")
         Class<T> entityClass = (Class<T>) EntityReflection.chooseEntity();
@@ -36,7 +38,6 @@ public class CrudMenu {
     private static <T extends Entity> void get(MyBatis<T> dao, EntityReflection<T> rs) {
         LoggerService.print("\nFill with fields to filter by.");
         Map<String, Object> columnFilters = rs.readConditionValues();
-        List<T> values = dao.get(columnFilters);
 
         if (!columnFilters.isEmpty()) {
             LoggerService.print("Rows found with values");
@@ -45,7 +46,15 @@ public class CrudMenu {
             LoggerService.println(": ");
         }
 
-        LoggerService.println(ReflectionService.toTable(values));
+        int afterId = 0;
+        while (true) {
+            List<T> page = dao.getPage(columnFilters, afterId, PAGE_SIZE);
+            LoggerService.println(ReflectionService.toTable(page));
+            if (page.size() < PAGE_SIZE || !InputService.readConfirmation("Show the next rows? (Y/N): "))
+                break;
+
+            afterId = page.getLast().getId();
+        }
     }
 
     private static <T extends Entity> void create(MyBatis<T> dao, EntityReflection<T> rs) throws Exception {
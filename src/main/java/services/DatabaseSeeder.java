@@ -0,0 +1,78 @@
+package services;
+
+import entities.Entity;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.logging.log4j.Level;
+import utils.LoggerService;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Sink inserting a dataset into the database, keeping the IDs of its entities, so it is meant for empty tables.
+ * <p>
+ * Rows are inserted through a BATCH executor, flushed every {@link #BATCH_SIZE} rows and committed every
+ * {@link #COMMIT_SIZE} rows. With MySQL, adding {@code rewriteBatchedStatements=true} to the connection URL lets the
+ * driver send every batch as a few multi-row inserts. The change listeners of {@link MyBatis} are notified once, on
+ * close, of all the committed rows.
+ */
+public final class DatabaseSeeder implements DatasetSink {
+    public static final int BATCH_SIZE = 1_000;
+    public static final int COMMIT_SIZE = 50_000;
+
+    private final SqlSession session;
+    private final Map<Class<? extends Entity>, Integer> uncommitted = new LinkedHashMap<>();
+    private final Map<Class<? extends Entity>, Integer> committed = new LinkedHashMap<>();
+    private int unflushedRows;
+    private int uncommittedRows;
+    private boolean failed;
+
+    public DatabaseSeeder() throws IOException {
+        this.session = MyBatis.openSession(ExecutorType.BATCH);
+    }
+
+    @Override
+    public void accept(Entity entity) {
+        try {
+            session.insert(entity.getClass().getName() + ".seed", entity);
+            uncommitted.merge(entity.getClass(), 1, Integer::sum);
+
+            if (++uncommittedRows == COMMIT_SIZE)
+                commit();
+            else if (++unflushedRows == BATCH_SIZE) {
+                session.flushStatements();
+                unflushedRows = 0;
+            }
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        }
+    }
+
+    private void commit() {
+        session.commit();
+        uncommitted.forEach((clazz, rows) -> committed.merge(clazz, rows, Integer::sum));
+        uncommitted.clear();
+        unflushedRows = 0;
+        uncommittedRows = 0;
+    }
+
+    /**
+     * Commits the remaining rows, or rolls them back if an insert failed, and notifies the change listeners.
+     */
+    @Override
+    public void close() {
+        try {
+            if (failed)
+                session.rollback();
+            else
+                commit();
+        } finally {
+            session.close();
+            committed.forEach((clazz, rows) -> MyBatis.notifyChange(clazz, EntityChange.Type.CREATE, rows));
+            LoggerService.log(Level.INFO, "Dataset inserted: " + committed);
+        }
+    }
+}
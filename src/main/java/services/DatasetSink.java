@@ -0,0 +1,17 @@
+package services;
+
+import entities.Entity;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Destination of the entities of a dataset, written by a {@link NetworkGenerator} or read back by
+ * {@link JsonLinesDataset#load}.
+ * <p>
+ * Entities are given in foreign-key order (airlines, airports, routes, passengers, then trips) with their IDs set,
+ * and the dataset is complete once the sink is closed.
+ */
+public interface DatasetSink extends Closeable {
+    void accept(Entity entity) throws IOException;
+}
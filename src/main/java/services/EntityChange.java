@@ -0,0 +1,31 @@
+package services;
+
+import entities.Entity;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notification sent by {@link MyBatis} to its change listeners once a write has been committed.
+ *
+ * @param entityClass the entity whose table changed
+ * @param type        the kind of write
+ * @param rows        the number of affected rows
+ * @param entities    the created entities, with their generated IDs when the mapper sets them, or an empty list if
+ *                    they are not known or the write is not a create
+ * @param filters     the column filters of an update or delete, or null if they are not known or the write is a
+ *                    create
+ */
+public record EntityChange(Class<? extends Entity> entityClass, Type type, int rows,
+                           List<? extends Entity> entities, Map<String, Object> filters) {
+    public enum Type {
+        CREATE, UPDATE, DELETE
+    }
+
+    /**
+     * Creates a notification that only tells which table changed, and how many rows.
+     */
+    public EntityChange(Class<? extends Entity> entityClass, Type type, int rows) {
+        this(entityClass, type, rows, List.of(), null);
+    }
+}
@@ -0,0 +1,299 @@
+package services;
+
+import entities.Airport;
+import entities.Entity;
+import entities.Route;
+import org.apache.logging.log4j.Level;
+import routing.AllPairs;
+import routing.GraphSnapshot;
+import routing.RouteGraph;
+import utils.LoggerService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Keeps the process-wide route network in a {@link GraphSnapshot} file, so that a restart serves queries from it
+ * instead of reading every route from the database again.
+ * <p>
+ * The snapshot is only trusted as long as the tables it was built from do not change. It is stamped with the
+ * {@code data_version} row of the database, which triggers on the routes and airports bump in the transaction of every
+ * write, and a file whose version no longer matches, e.g. after a write from another process or through plain SQL, is
+ * rejected by {@link #load()} with a single-row read.
+ * <p>
+ * Once {@link #watchChanges()} is called, which the application does at startup, committed writes through
+ * {@link MyBatis} of this process keep the loaded network up to date: route writes are applied to it in memory, from
+ * the created routes or by re-reading the updated ones, and anything else reloads it from the database. Listeners of
+ * {@link MyBatis} registered after that call find the updated network through {@link #load()}. The file follows the
+ * network from a background thread, so it may lag behind it, or miss the last changes if the process exits.
+ */
+public final class GraphSnapshotStore {
+    private static final Path SNAPSHOT_PATH = Path.of("route_graph.snapshot");
+    private static final AtomicBoolean WRITE_PENDING = new AtomicBoolean();
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "route-graph-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile GraphSnapshot current;
+    private static boolean watching;
+
+    private GraphSnapshotStore() {
+    }
+
+    /**
+     * Applies every committed write to the routes or airports through {@link MyBatis} to the network, from now on.
+     * Must be called before the first write, so that no write can leave an outdated snapshot behind.
+     */
+    public static synchronized void watchChanges() {
+        if (watching)
+            return;
+
+        watching = true;
+        MyBatis.addChangeListener(Route.class, GraphSnapshotStore::onChange);
+        MyBatis.addChangeListener(Airport.class, GraphSnapshotStore::onChange);
+    }
+
+    /**
+     * Returns the current snapshot, read from the snapshot file or, if there is none or it is rejected, rebuilt
+     * from the database and saved.
+     * <p>
+     * The file is rejected when its data version differs from the one of the database. If the database cannot be
+     * reached to tell, the file is used as is.
+     *
+     * @return the up-to-date snapshot
+     */
+    public static synchronized GraphSnapshot load() {
+        watchChanges();
+        if (current != null)
+            return current;
+
+        try {
+            GraphSnapshot snapshot = GraphSnapshot.read(SNAPSHOT_PATH);
+            if (isCurrent(snapshot, readDataVersion())) {
+                current = snapshot;
+                LoggerService.log(Level.DEBUG, "Route graph restored from " + SNAPSHOT_PATH);
+                return current;
+            }
+            LoggerService.log(Level.INFO, "Route graph snapshot outdated, reading the database.");
+        } catch (NoSuchFileException e) {
+            LoggerService.log(Level.DEBUG, "No route graph snapshot, reading the database.");
+        } catch (IOException e) {
+            LoggerService.log(Level.WARN, e.getMessage());
+        }
+
+        return reload();
+    }
+
+    /**
+     * Discards the current snapshot, then rebuilds it from the database and saves it.
+     *
+     * @return the new snapshot, without any all-pairs result
+     */
+    private static synchronized GraphSnapshot reload() {
+        watchChanges();
+        invalidate();
+        current = readDatabase();
+        scheduleWrite();
+        return current;
+    }
+
+    /**
+     * Adds all-pairs results to the saved snapshot. Results computed on an older network are ignored, and so are
+     * results that would make the file larger than {@link GraphSnapshot#MAX_BYTES}, the snapshot keeping the network.
+     *
+     * @param tables the results to save, replacing the ones saved for the same metrics
+     */
+    public static synchronized void save(Collection<AllPairs> tables) {
+        if (current == null || tables.stream().anyMatch(table -> table.graph() != current.graph()))
+            return;
+
+        List<AllPairs> merged = new ArrayList<>(current.allPairs());
+        merged.addAll(tables);
+        GraphSnapshot snapshot = new GraphSnapshot(current.graph(), merged, current.dataVersion());
+        if (snapshot.fileSize() > GraphSnapshot.MAX_BYTES) {
+            LoggerService.log(Level.INFO, "All-pairs results of " + current.graph().airportCount()
+                    + " airports too large for the route graph snapshot, only the network is saved.");
+            return;
+        }
+
+        current = snapshot;
+        scheduleWrite();
+    }
+
+    public static synchronized void invalidate() {
+        current = null;
+        scheduleWrite();
+    }
+
+    /**
+     * Brings the loaded network up to date with a committed write, reloading it from the database if the write
+     * cannot be applied in memory. Without a loaded network, only the file is deleted.
+     */
+    private static synchronized void onChange(EntityChange change) {
+        GraphSnapshot previous = current;
+        invalidate();
+        if (previous == null)
+            return;
+
+        try {
+            current = applyChange(previous, change);
+            scheduleWrite();
+        } catch (RuntimeException e) {
+            LoggerService.log(Level.WARN, "Route graph discarded: " + e.getMessage());
+        }
+    }
+
+    private static GraphSnapshot applyChange(GraphSnapshot snapshot, EntityChange change) {
+        if (change.entityClass() == Route.class) {
+            RouteGraph graph = applyRouteChange(snapshot.graph(), change, GraphSnapshotStore::readRoutes);
+            // Every written row bumps the data version once, so any other difference is another write in between.
+            Long dataVersion = graph == null ? null : readDataVersion();
+            if (dataVersion != null && dataVersion == snapshot.dataVersion() + change.rows()) {
+                LoggerService.log(Level.DEBUG, change.rows() + " route changes applied to the route graph.");
+                return new GraphSnapshot(graph, List.of(), dataVersion);
+            }
+        }
+
+        LoggerService.log(Level.DEBUG, "Route graph reloaded after a change to the "
+                + change.entityClass().getSimpleName() + " table.");
+        return readDatabase();
+    }
+
+    /**
+     * Applies a committed write to the routes to a network: created routes are added, the routes matching the filters
+     * of a delete are removed, and the ones matching the filters of an update are read again.
+     *
+     * @param graph  the network before the write
+     * @param change the committed write
+     * @param reader reads the routes of the given IDs from the database
+     * @return the network after the write, or null if the change does not tell which routes were written, or does not
+     * add up with the network
+     */
+    static RouteGraph applyRouteChange(RouteGraph graph, EntityChange change,
+                                       Function<List<Integer>, List<Route>> reader) {
+        Map<Integer, Route> routes = new LinkedHashMap<>();
+        for (int edge = 0; edge < graph.edgeCount(); edge++)
+            routes.put(graph.routeId(edge), graph.route(edge));
+
+        if (change.type() == EntityChange.Type.CREATE) {
+            if (change.entities().size() != change.rows())
+                return null;
+            for (Entity entity : change.entities()) {
+                if (entity.getId() <= 0 || routes.putIfAbsent(entity.getId(), (Route) entity) != null)
+                    return null;
+            }
+        } else {
+            if (change.filters() == null)
+                return null;
+
+            Predicate<Route> matcher = new ColumnFilters<>(Route.class).matcher(change.filters());
+            List<Integer> written = routes.values().stream().filter(matcher).map(Route::getId).toList();
+            if (written.size() != change.rows())
+                return null;
+
+            written.forEach(routes::remove);
+            if (change.type() == EntityChange.Type.UPDATE) {
+                List<Route> updated = reader.apply(written);
+                if (updated.size() != written.size())
+                    return null;
+                for (Route route : updated) {
+                    if (routes.putIfAbsent(route.getId(), route) != null)
+                        return null;
+                }
+            }
+        }
+
+        RouteGraph.Builder builder = new RouteGraph.Builder(graph.airports(), routes.size());
+        for (Route route : routes.values()) {
+            if (!builder.add(route))
+                return null;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Makes the file follow the current snapshot from the writer thread, deleting it while there is none. Requests
+     * made while a write is pending are folded into it.
+     */
+    private static void scheduleWrite() {
+        if (WRITE_PENDING.compareAndSet(false, true))
+            WRITER.execute(GraphSnapshotStore::write);
+    }
+
+    private static void write() {
+        WRITE_PENDING.set(false);
+        GraphSnapshot snapshot = current;
+        try {
+            if (snapshot == null)
+                Files.deleteIfExists(SNAPSHOT_PATH);
+            else
+                snapshot.write(SNAPSHOT_PATH);
+        } catch (IOException e) {
+            LoggerService.log(Level.WARN, "Could not update the route graph snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the network and its data version in the same transaction, so that the version matches what was read.
+     */
+    private static GraphSnapshot readDatabase() {
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            long dataVersion = dataVersion(unit);
+            RouteGraph graph = RouteService.buildGraph(unit.dao(Airport.class).get(), unit.dao(Route.class));
+            return new GraphSnapshot(graph, List.of(), dataVersion);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Route> readRoutes(List<Integer> ids) {
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            return unit.session().selectList(Route.class.getName() + ".getByIds", ids);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @param snapshot    a snapshot read from the file
+     * @param dataVersion the current data version, or null if unknown
+     * @return false if the snapshot was built from other data than the current one
+     */
+    static boolean isCurrent(GraphSnapshot snapshot, Long dataVersion) {
+        return dataVersion == null || snapshot.dataVersion() == dataVersion;
+    }
+
+    /**
+     * @return the current data version, or null if the database cannot be reached
+     */
+    private static Long readDataVersion() {
+        try (UnitOfWork unit = UnitOfWork.begin()) {
+            return dataVersion(unit);
+        } catch (Exception e) {
+            LoggerService.log(Level.WARN, "Could not check the route graph snapshot against the database: "
+                    + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the version of the airports and routes tables, kept in the {@code data_version} table of
+     * {@code database.sql}.
+     */
+    private static long dataVersion(UnitOfWork unit) {
+        return unit.session().<Long>selectOne(Route.class.getName() + ".dataVersion");
+    }
+}
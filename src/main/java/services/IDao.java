@@ -2,18 +2,52 @@ package services;
 
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public interface IDao<T> {
+    int DEFAULT_CHUNK_SIZE = 500;
+
     List<T> get(Map<String, Object> fieldValueFilters);
 
     default List<T> get() {
         return get(Map.of());
     }
 
+    /**
+     * Returns the page of rows matching the filters that follows a given id, in id order. Each page is read through
+     * the primary key index, so it costs the same however far it is in the table.
+     *
+     * @param afterId the id of the last row of the previous page, 0 for the first page
+     * @param limit   the maximum number of rows
+     */
+    List<T> getPage(Map<String, Object> fieldValueFilters, int afterId, int limit);
+
+    /**
+     * Streams the rows matching the filters from a database cursor, fetching a few rows at a time instead of the
+     * whole result. The stream must be closed, before the DAO.
+     */
+    Stream<T> stream(Map<String, Object> fieldValueFilters);
+
+    default Stream<T> stream() {
+        return stream(Map.of());
+    }
+
     int create(T t);
 
+    /**
+     * Inserts all the entities with multi-row inserts of at most {@code chunkSize} rows each, committed once.
+     *
+     * @return the number of inserted rows
+     */
+    int createAll(Collection<? extends T> ts, int chunkSize);
+
+    default int createAll(Collection<? extends T> ts) {
+        return createAll(ts, DEFAULT_CHUNK_SIZE);
+    }
+
     int update(
             @Param("values") Map<String, Object> newValues,
             @Param("filters") Map<String, Object> fieldValueFilters
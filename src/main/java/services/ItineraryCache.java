@@ -0,0 +1,177 @@
+package services;
+
+import entities.Airport;
+import entities.Route;
+import routing.RouteMetric;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide least-recently-used cache of the itineraries resolved by {@link RouteService}, keyed by departure
+ * airport, destination airport and {@link RouteMetric}, along with the Pareto frontiers of distance and price keyed
+ * by departure and destination airports.
+ * <p>
+ * The cache is bounded both by number of entries and by weight (the total number of legs of the cached itineraries),
+ * evicting the least recently used entries first. Every entry is stamped with the version of the route network it
+ * was computed on: committed writes to the routes or airports through {@link MyBatis} bump the version, and stale
+ * entries are dropped when they are next looked up.
+ * <p>
+ * Every routing mode returns a cheapest itinerary, so a cached entry may be served for any mode of the same metric.
+ */
+public final class ItineraryCache {
+    public static final int MAX_ENTRIES = 1024;
+    public static final int MAX_WEIGHT = 16 * 1024;
+
+    private static final AtomicLong VERSION = new AtomicLong();
+    private static final LinkedHashMap<Key, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    private static int weight;
+    private static long hits;
+    private static long misses;
+    private static long evictions;
+
+    static {
+        // Registered after the store, so that a version read before loading the network never runs ahead of it.
+        GraphSnapshotStore.watchChanges();
+        MyBatis.addChangeListener(Route.class, _ -> VERSION.incrementAndGet());
+        MyBatis.addChangeListener(Airport.class, _ -> VERSION.incrementAndGet());
+    }
+
+    private ItineraryCache() {
+    }
+
+    /**
+     * Returns the current version of the route network, to be read before loading it.
+     *
+     * @return the number of committed route and airport writes so far
+     */
+    public static long version() {
+        return VERSION.get();
+    }
+
+    /**
+     * Looks up a cached itinerary.
+     *
+     * @param startId the ID of the departure airport
+     * @param endId   the ID of the destination airport
+     * @param metric  the minimized metric
+     * @return the cached itinerary (possibly empty if there is no path), or null if it is not cached or stale
+     */
+    public static List<Route> get(int startId, int endId, RouteMetric metric) {
+        List<List<Route>> itineraries = get(new Key(startId, endId, metric));
+        return itineraries == null ? null : itineraries.getFirst();
+    }
+
+    /**
+     * Looks up a cached Pareto frontier.
+     *
+     * @param startId the ID of the departure airport
+     * @param endId   the ID of the destination airport
+     * @return the cached itineraries (possibly none if there is no path), or null if they are not cached or stale
+     */
+    public static List<List<Route>> getFrontier(int startId, int endId) {
+        return get(new Key(startId, endId, null));
+    }
+
+    private static synchronized List<List<Route>> get(Key key) {
+        Entry entry = ENTRIES.get(key);
+        if (entry != null && entry.version() != VERSION.get()) {
+            remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+
+        hits++;
+        return entry.itineraries();
+    }
+
+    /**
+     * Caches an itinerary, then evicts the least recently used entries until both bounds are respected.
+     * Itineraries computed on an outdated network are ignored.
+     *
+     * @param startId the ID of the departure airport
+     * @param endId   the ID of the destination airport
+     * @param metric  the minimized metric
+     * @param routes  the itinerary
+     * @param version the {@link #version()} read before loading the network the itinerary was computed on
+     */
+    public static void put(int startId, int endId, RouteMetric metric, List<Route> routes, long version) {
+        put(new Key(startId, endId, metric), List.of(List.copyOf(routes)), version);
+    }
+
+    /**
+     * Caches a Pareto frontier, like {@link #put(int, int, RouteMetric, List, long)}.
+     *
+     * @param startId     the ID of the departure airport
+     * @param endId       the ID of the destination airport
+     * @param itineraries the non-dominated itineraries
+     * @param version     the {@link #version()} read before loading the network they were computed on
+     */
+    public static void putFrontier(int startId, int endId, List<List<Route>> itineraries, long version) {
+        put(new Key(startId, endId, null), itineraries.stream().map(List::copyOf).toList(), version);
+    }
+
+    private static synchronized void put(Key key, List<List<Route>> itineraries, long version) {
+        if (version != VERSION.get())
+            return;
+
+        remove(key);
+        Entry entry = new Entry(itineraries, version);
+        ENTRIES.put(key, entry);
+        weight += entry.weight();
+
+        Iterator<Map.Entry<Key, Entry>> eldest = ENTRIES.entrySet().iterator();
+        while (ENTRIES.size() > MAX_ENTRIES || weight > MAX_WEIGHT) {
+            weight -= eldest.next().getValue().weight();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public static synchronized void clear() {
+        ENTRIES.clear();
+        weight = 0;
+    }
+
+    public static synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, ENTRIES.size(), weight);
+    }
+
+    private static void remove(Key key) {
+        Entry removed = ENTRIES.remove(key);
+        if (removed != null)
+            weight -= removed.weight();
+    }
+
+    /**
+     * @param hits      the lookups answered from the cache
+     * @param misses    the lookups of missing or stale itineraries
+     * @param evictions the entries evicted to respect the bounds
+     * @param entries   the number of cached itineraries
+     * @param weight    the total weight of the cached itineraries
+     */
+    public record Stats(long hits, long misses, long evictions, int entries, int weight) {
+        public double hitRate() {
+            return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+        }
+    }
+
+    /** The metric is null for the Pareto frontier, which optimizes both. */
+    private record Key(int startId, int endId, RouteMetric metric) {
+    }
+
+    /** A single itinerary, or the itineraries of a Pareto frontier. */
+    private record Entry(List<List<Route>> itineraries, long version) {
+        /** One unit per leg, plus one so that empty itineraries are not free. */
+        int weight() {
+            return itineraries.stream().mapToInt(List::size).sum() + 1;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package services;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import entities.*;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Datasets stored as one JSON Lines file per table ({@code airlines.jsonl}, {@code airports.jsonl}, ...), with one
+ * entity per line in the JSON form of the entities and dates as {@code yyyy-MM-dd}.
+ */
+public final class JsonLinesDataset {
+    /** The files of a dataset, in foreign-key order. */
+    private static final Map<Class<? extends Entity>, String> FILES = new LinkedHashMap<>();
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.GETTER, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.IS_GETTER, JsonAutoDetect.Visibility.NONE)
+            .registerModule(new SimpleModule()
+                    .addSerializer(LocalDate.class, ToStringSerializer.instance)
+                    .addDeserializer(LocalDate.class, new StdDeserializer<>(LocalDate.class) {
+                        @Override
+                        public LocalDate deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+                            return LocalDate.parse(parser.getValueAsString());
+                        }
+                    }));
+
+    static {
+        FILES.put(Airline.class, "airlines.jsonl");
+        FILES.put(Airport.class, "airports.jsonl");
+        FILES.put(Route.class, "routes.jsonl");
+        FILES.put(Passenger.class, "passengers.jsonl");
+        FILES.put(Trip.class, "trips.jsonl");
+    }
+
+    private JsonLinesDataset() {
+    }
+
+    /**
+     * Opens a sink writing a dataset to a directory, replacing the files of a previous dataset.
+     *
+     * @param directory the directory, created if missing
+     * @return the sink, to be closed once the dataset is written
+     * @throws IOException if the directory cannot be created
+     */
+    public static DatasetSink writer(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (String file : FILES.values())
+            Files.deleteIfExists(directory.resolve(file));
+
+        return new DatasetSink() {
+            private final Map<Class<? extends Entity>, BufferedWriter> writers = new LinkedHashMap<>();
+
+            @Override
+            public void accept(Entity entity) throws IOException {
+                String file = FILES.get(entity.getClass());
+                if (file == null)
+                    throw new IllegalArgumentException("Not a dataset entity: " + entity.getClass().getName());
+
+                BufferedWriter writer = writers.get(entity.getClass());
+                if (writer == null) {
+                    writer = Files.newBufferedWriter(directory.resolve(file));
+                    writers.put(entity.getClass(), writer);
+                }
+                writer.write(MAPPER.writeValueAsString(entity));
+                writer.write('\n');
+            }
+
+            @Override
+            public void close() throws IOException {
+                IOException failure = null;
+                for (BufferedWriter writer : writers.values()) {
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        if (failure == null)
+                            failure = e;
+                    }
+                }
+                if (failure != null)
+                    throw failure;
+            }
+        };
+    }
+
+    /**
+     * Reads a dataset back, table by table in foreign-key order, skipping the tables that have no file.
+     * The sink is not closed.
+     *
+     * @param directory the directory of the dataset
+     * @param sink      the sink receiving the entities, e.g. a {@link DatabaseSeeder}
+     * @return the number of entities read
+     * @throws IOException if a file cannot be read or holds a malformed line
+     */
+    public static long load(Path directory, DatasetSink sink) throws IOException {
+        long count = 0;
+        for (Map.Entry<Class<? extends Entity>, String> table : FILES.entrySet()) {
+            Path file = directory.resolve(table.getValue());
+            if (!Files.exists(file))
+                continue;
+
+            ObjectReader reader = MAPPER.readerFor(table.getKey());
+            try (BufferedReader lines = Files.newBufferedReader(file)) {
+                String line;
+                while ((line = lines.readLine()) != null) {
+                    if (line.isBlank())
+                        continue;
+                    sink.accept(reader.readValue(line));
+                    count++;
+                }
+            }
+        }
+
+        return count;
+    }
+}
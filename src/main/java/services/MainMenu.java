@@ -34,25 +34,31 @@ public class MainMenu {
     }
 
     private static void handleNewTrip() {
-        try (
-                MyBatis<Airport> airportDao = new MyBatis<>(Airport.class);
-                MyBatis<Trip> tripDao = new MyBatis<>(Trip.class)
-        ) {
-            Passenger currentPassenger = getCurrentPassenger();
+        try {
+            Passenger currentPassenger = getCurrentPassenger(readPassengers());
             LoggerService.consoleLog(Level.INFO, "Welcome, " + currentPassenger.getFullName());
 
-            List<Airport> airports = airportDao.get();
+            List<Airport> airports = new ArrayList<>(CachedDao.of(Airport.class).get()); // selectAirports modifies it
             List<Airport> chosenAirports = selectAirports(airports);
 
             RouteService routeService = new RouteService(airports, chosenAirports.get(0), chosenAirports.get(1));
-            List<Route> shortestRoutes = routeService.getRoutesBetweenAirports(Route::getKm);
-            List<Route> cheapestRoutes = routeService.getRoutesBetweenAirports(Route::getPrice);
-
-            routeService.printRouteDetails(shortestRoutes);
-            routeService.printRouteDetails(cheapestRoutes);
-
-            List<Route> chosenRoutes = chooseFinalTrip(shortestRoutes, cheapestRoutes);
-            saveTripToDatabase(tripDao, currentPassenger, chosenRoutes);
+            List<List<Route>> itineraries = routeService.getParetoRoutes();
+            if (itineraries.isEmpty())
+                return; // getParetoRoutes already told the user
+
+            for (int i = 0; i < itineraries.size(); i++) {
+                System.out.printf("%d. ", i + 1);
+                routeService.printRouteDetails(itineraries.get(i));
+            }
+
+            List<Route> shortestRoutes = itineraries.getFirst();
+            List<Route> cheapestRoutes = itineraries.getLast();
+            List<Route> chosenRoutes = chooseFinalTrip(itineraries);
+            // Only hold a connection for the write, not while the user answers the prompts.
+            try (UnitOfWork unit = UnitOfWork.begin()) {
+                saveTripToDatabase(unit.dao(Trip.class), currentPassenger, chosenRoutes);
+                unit.commit();
+            }
 
             LoggerService.consoleLog(Level.INFO, "Trip saved to database!");
             routeService.saveSession(shortestRoutes, cheapestRoutes);
@@ -61,30 +67,30 @@ public class MainMenu {
         }
     }
 
-    private static Passenger getCurrentPassenger() {
+    private static List<Passenger> readPassengers() throws IOException {
         try (MyBatis<Passenger> passengerDao = new MyBatis<>(Passenger.class)) {
-            List<Passenger> passengers = passengerDao.get();
-
-            String[] passengerIds = passengers.stream()
-                    .map(Passenger::getId)
-                    .map(String::valueOf)
-                    .toArray(String[]::new);
-
-            String passengerIdStr = InputService.readString(
-                    "Enter passenger ID: ",
-                    "This ID does not belong to a passenger. Try again: ",
-                    passengerIds
-            );
-
-            return passengers.stream()
-                    .filter(p -> p.getId() == Integer.parseInt(passengerIdStr))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalArgumentException("Passenger not found with ID: " + passengerIdStr));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            return passengerDao.get();
         }
     }
 
+    private static Passenger getCurrentPassenger(List<Passenger> passengers) {
+        String[] passengerIds = passengers.stream()
+                .map(Passenger::getId)
+                .map(String::valueOf)
+                .toArray(String[]::new);
+
+        String passengerIdStr = InputService.readString(
+                "Enter passenger ID: ",
+                "This ID does not belong to a passenger. Try again: ",
+                passengerIds
+        );
+
+        return passengers.stream()
+                .filter(p -> p.getId() == Integer.parseInt(passengerIdStr))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Passenger not found with ID: " + passengerIdStr));
+    }
+
     private static List<Airport> selectAirports(List<Airport> airports) {
         SelectionMenuView<Airport> airportsView = new SelectionMenuView<>(airports)
                 .setElementConsumer((Airport a, Integer index) -> System.out.printf("%d. %s\n", index, a))
@@ -111,22 +117,27 @@ public class MainMenu {
         return chosenAirports;
     }
 
-    private static List<Route> chooseFinalTrip(List<Route> shortestRoutes, List<Route> cheapestRoutes) {
-        int chosenTrip = InputService.readCharInValues(
-                "Select final trip. Shortest (1) or Cheapest (2): ",
-                "Invalid value. Try again (1-2): ",
-                new char[]{'1', '2'}
+    private static List<Route> chooseFinalTrip(List<List<Route>> itineraries) {
+        if (itineraries.size() == 1)
+            return itineraries.getFirst();
+
+        int chosenTrip = InputService.readNumber(
+                String.format("Select final trip. Shortest (1) to Cheapest (%d): ", itineraries.size()),
+                String.format("Invalid value. Try again (1-%d): ", itineraries.size()),
+                1, itineraries.size(),
+                Integer.class
         );
-        return chosenTrip == '1' ? shortestRoutes : cheapestRoutes;
+        return itineraries.get(chosenTrip - 1);
     }
 
     private static void saveTripToDatabase(MyBatis<Trip> tripDao, Passenger currentPassenger, List<Route> chosenRoutes) {
+        List<Trip> trips = new ArrayList<>();
         for (int i = 0; i < chosenRoutes.size(); i++) {
             Route route = chosenRoutes.get(i);
             LocalDate date = LocalDate.now().plusDays(i);
-            Trip trip = new Trip(currentPassenger.getId(), route.getId(), date);
-            tripDao.create(trip);
+            trips.add(new Trip(currentPassenger.getId(), route.getId(), date));
         }
+        tripDao.createAll(trips);
     }
 
 }
\ No newline at end of file
@@ -1,29 +1,106 @@
 package services;
 
 import entities.Entity;
-import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.session.*;
+import org.apache.logging.log4j.Level;
+import utils.LoggerService;
 
 import java.io.IOException;
-import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class MyBatis<T extends Entity> implements IDao<T>, AutoCloseable {
+    private static final Map<Class<? extends Entity>, List<Consumer<EntityChange>>> CHANGE_LISTENERS = new ConcurrentHashMap<>();
+
     private final SqlSession session;
+    private final UnitOfWork unit;
     public final Class<T> clazz;
 
+    /**
+     * Creates a DAO with its own session, committing every write.
+     */
     public MyBatis(Class<T> clazz) throws IOException {
-        Reader reader = Resources.getResourceAsReader("mybatis-config.xml");
-        SqlSessionFactory sessionFactory = new SqlSessionFactoryBuilder().build(reader);
-        this.session = sessionFactory.openSession();
+        this.session = openSession(ExecutorType.SIMPLE);
+        this.unit = null;
         this.clazz = clazz;
     }
 
+    /**
+     * Creates a DAO using the session of a unit of work, which commits its writes.
+     */
+    MyBatis(Class<T> clazz, UnitOfWork unit) {
+        this.session = unit.session();
+        this.unit = unit;
+        this.clazz = clazz;
+    }
+
+    /**
+     * Opens a session on the configured database, outside of any DAO. Writes through it are not notified to the
+     * change listeners until {@link #notifyChange(Class, EntityChange.Type, int)} is called.
+     *
+     * @param executorType SIMPLE, REUSE or BATCH
+     * @return the session, to be committed and closed by the caller
+     * @throws IOException if the configuration cannot be read
+     * @see SessionFactories
+     */
+    static SqlSession openSession(ExecutorType executorType) throws IOException {
+        return SessionFactories.get().openSession(executorType);
+    }
+
+    /**
+     * Registers a listener notified after every committed create, update or delete of the given entity,
+     * through any DAO instance.
+     *
+     * @param clazz    the entity to listen to
+     * @param listener the listener, called on the thread that performed the write
+     */
+    public static void addChangeListener(Class<? extends Entity> clazz, Consumer<EntityChange> listener) {
+        CHANGE_LISTENERS.computeIfAbsent(clazz, _ -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * Commits a write and notifies it, or leaves both to the unit of work.
+     */
+    private void commit(EntityChange change) {
+        if (unit != null) {
+            unit.changed(change);
+            return;
+        }
+
+        this.session.commit();
+        notifyChange(change);
+    }
+
+    static void notifyChange(Class<? extends Entity> clazz, EntityChange.Type type, int rows) {
+        notifyChange(new EntityChange(clazz, type, rows));
+    }
+
+    static void notifyChange(EntityChange change) {
+        if (change.rows() == 0)
+            return;
+
+        Class<? extends Entity> clazz = change.entityClass();
+        for (Consumer<EntityChange> listener : CHANGE_LISTENERS.getOrDefault(clazz, List.of())) {
+            try {
+                listener.accept(change);
+            } catch (RuntimeException e) {
+                LoggerService.log(Level.ERROR, "Change listener failed for " + clazz.getSimpleName() + ": " + e.getMessage());
+            }
+        }
+    }
+
     @Override
     public void close() {
-        if (this.session != null)
+        if (this.session != null && unit == null)
             this.session.close();
     }
 
@@ -32,10 +109,60 @@ public final class MyBatis<T extends Entity> implements IDao<T>, AutoCloseable {
         return this.session.selectList(clazz.getName() + ".get", fieldValueFilters);
     }
 
+    @Override
+    public List<T> getPage(Map<String, Object> fieldValueFilters, int afterId, int limit) {
+        Map<String, Object> paramsMap = new HashMap<>();
+        paramsMap.put("filters", fieldValueFilters);
+        paramsMap.put("afterId", afterId);
+        paramsMap.put("limit", limit);
+
+        return this.session.selectList(clazz.getName() + ".getPage", paramsMap);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The {@code stream} statements set a fetch size, so with {@code useCursorFetch}, set on the data source, MySQL
+     * sends the rows in batches of that size.
+     */
+    @Override
+    public Stream<T> stream(Map<String, Object> fieldValueFilters) {
+        Cursor<T> cursor = this.session.selectCursor(clazz.getName() + ".stream", fieldValueFilters);
+        return StreamSupport.stream(cursor.spliterator(), false).onClose(() -> {
+            try {
+                cursor.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
     @Override
     public int create(T t) {
         int rows = this.session.insert(clazz.getName() + ".create", t);
-        this.session.commit();
+        commit(new EntityChange(clazz, EntityChange.Type.CREATE, rows, List.of(t), null));
+        return rows;
+    }
+
+    @Override
+    public int createAll(Collection<? extends T> ts, int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+        List<? extends T> all = List.copyOf(ts);
+        int rows = 0;
+        try {
+            for (int from = 0; from < all.size(); from += chunkSize) {
+                List<? extends T> chunk = all.subList(from, Math.min(all.size(), from + chunkSize));
+                rows += this.session.insert(clazz.getName() + ".createAll", chunk);
+            }
+        } catch (RuntimeException e) {
+            if (unit == null)
+                this.session.rollback();
+            throw e;
+        }
+
+        commit(new EntityChange(clazz, EntityChange.Type.CREATE, rows, all, null));
         return rows;
     }
 
@@ -46,14 +173,14 @@ public final class MyBatis<T extends Entity> implements IDao<T>, AutoCloseable {
         paramsMap.put("filters", fieldValueFilters);
 
         int rows = this.session.update(clazz.getName() + ".update", paramsMap);
-        this.session.commit();
+        commit(new EntityChange(clazz, EntityChange.Type.UPDATE, rows, List.of(), fieldValueFilters));
         return rows;
     }
 
     @Override
     public int delete(Map<String, Object> fieldValueFilters) {
         int rows = this.session.delete(clazz.getName() + ".delete", fieldValueFilters);
-        this.session.commit();
+        commit(new EntityChange(clazz, EntityChange.Type.DELETE, rows, List.of(), fieldValueFilters));
         return rows;
     }
 }
@@ -0,0 +1,418 @@
+package services;
+
+import entities.*;
+import routing.GreatCircle;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Seedable generator of hub-and-spoke airline networks, for load and capacity tests.
+ * <p>
+ * Airports are scattered around region centres, the number of airports per region following a power law, and the
+ * busiest airports of every region are its hubs. Every airport opens about {@code routesPerAirport / 2} links, each
+ * link being a pair of routes, one per direction, flown by the same airline: spokes mostly to one of the nearest
+ * hubs of their region and otherwise to another airport of the region, hubs mostly to the hubs of the neighbouring
+ * regions and otherwise to a hub anywhere. Airlines are based at a hub, from which they fly most of their links.
+ * Distances are the great-circle distance plus a detour of 2 to 12%, and prices a fixed fee plus a per-kilometre
+ * rate of the airline, lower between hubs. Trips pick their route weighted by the size of its airports, and their
+ * passenger among the frequent flyers first.
+ * <p>
+ * Entities are numbered as the {@code AUTO_INCREMENT} of {@code database.sql} numbers them in empty tables, and are
+ * given to the {@link DatasetSink} in foreign-key order. Only the airports and the route popularity are kept in
+ * memory, as primitive arrays, so datasets of millions of rows can be streamed. Equal settings give equal datasets.
+ */
+public final class NetworkGenerator {
+    public static final int FIRST_AIRLINE_ID = 201;
+    public static final int FIRST_AIRPORT_ID = 101;
+    public static final int FIRST_ROUTE_ID = 1001;
+    public static final int FIRST_PASSENGER_ID = 1;
+    public static final int FIRST_TRIP_ID = 1;
+
+    private static final int AIRPORTS_PER_HUB = 40;
+    private static final int NEAREST_HUBS = 3;
+    private static final int NEIGHBOUR_REGIONS = 4;
+    private static final double SPOKE_TO_HUB_SHARE = 0.7;
+    private static final double HUB_TO_NEIGHBOUR_SHARE = 0.6;
+    private static final double HOME_AIRLINE_SHARE = 0.8;
+    private static final double MAX_LATITUDE = 70;
+
+    private static final String[] SYLLABLES = {
+            "ba", "ca", "da", "el", "fa", "go", "ha", "is", "ka", "la", "mo", "na", "or", "pa", "qui", "ra", "sa",
+            "ta", "ur", "va", "wen", "xa", "yo", "za", "ber", "lin", "mar", "ton", "vil", "dor", "sen", "tri"
+    };
+    private static final String[] AIRLINE_SUFFIXES = {"Air", "Airways", "Airlines", "Express", "Jet", "Wings"};
+    private static final String[] FIRST_NAMES = {
+            "Anna", "Bruno", "Carla", "Diego", "Elena", "Felipe", "Grace", "Hugo", "Ines", "Jaco", "Karin", "Luis",
+            "Marcos", "Nadia", "Oscar", "Paula", "Quentin", "Rosa", "Sofia", "Tomas", "Ursula", "Victor", "Wanda",
+            "Xavier", "Yara", "Zoe", "Ivan", "Lucia", "Mateo", "Olga"
+    };
+    private static final String[] LAST_NAMES = {
+            "Alvarez", "Brown", "Costa", "Dubois", "Evans", "Fischer", "Garcia", "Hansen", "Ito", "Jensen", "Kowalski",
+            "Laporte", "Luna", "Moreau", "Novak", "Ortiz", "Pineda", "Pruzsi", "Quinn", "Rossi", "Silva", "Taylor",
+            "Ueda", "Varga", "Weber", "Xu", "Yilmaz", "Zimmermann", "Petrov", "Sato"
+    };
+
+    private final Settings settings;
+    private final Random random;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[] sizes;
+    private boolean[] hubs;
+    private int[] regions;
+    private int[][] regionAirports;
+    private int[][] regionHubs;
+    private int[][] neighbourRegions;
+    private int[] allHubs;
+
+    private double[] airlineFees;
+    private double[] airlineRates;
+    private int[][] hubAirlines;
+
+    private int routeCount;
+    private double[] routePopularity;
+
+    public NetworkGenerator(Settings settings) {
+        this.settings = settings;
+        this.random = new Random(settings.seed());
+    }
+
+    /**
+     * Generates the dataset. The sink is not closed.
+     *
+     * @param sink the sink receiving the entities
+     * @throws IOException if the sink fails
+     */
+    public void generate(DatasetSink sink) throws IOException {
+        placeAirports();
+        foundAirlines(sink);
+        for (int airport = 0; airport < settings.airports(); airport++) {
+            String city = cityName();
+            String name = hubs[airport] ? city + " International Airport (" + code(airport) + ")"
+                    : city + " Airport (" + code(airport) + ")";
+            sink.accept(new Airport(FIRST_AIRPORT_ID + airport, name, latitudes[airport], longitudes[airport]));
+        }
+        openRoutes(sink);
+        for (int passenger = 0; passenger < settings.passengers(); passenger++) {
+            sink.accept(new Passenger(FIRST_PASSENGER_ID + passenger,
+                    FIRST_NAMES[random.nextInt(FIRST_NAMES.length)], LAST_NAMES[random.nextInt(LAST_NAMES.length)]));
+        }
+        bookTrips(sink);
+    }
+
+    private void placeAirports() {
+        final int n = settings.airports();
+        final int regionCount = Math.max(1, (int) Math.round(Math.sqrt(n / 25.0)));
+        double[] centreLatitudes = new double[regionCount];
+        double[] centreLongitudes = new double[regionCount];
+        double[] spreads = new double[regionCount];
+        double[] regionWeights = new double[regionCount];
+        for (int region = 0; region < regionCount; region++) {
+            centreLatitudes[region] = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)) * MAX_LATITUDE / 90;
+            centreLongitudes[region] = 360 * random.nextDouble() - 180;
+            spreads[region] = 2 + 6 * random.nextDouble();
+            regionWeights[region] = (region == 0 ? 0 : regionWeights[region - 1]) + 1.0 / (region + 1);
+        }
+
+        latitudes = new double[n];
+        longitudes = new double[n];
+        sizes = new double[n];
+        regions = new int[n];
+        int[] regionSizes = new int[regionCount];
+        for (int airport = 0; airport < n; airport++) {
+            // Every region gets at least one airport, the others follow the power law.
+            int region = airport < regionCount ? airport : pick(regionWeights, regionCount);
+            double latitude = centreLatitudes[region] + random.nextGaussian() * spreads[region];
+            latitude = Math.max(-89, Math.min(89, latitude));
+            double longitude = centreLongitudes[region]
+                    + random.nextGaussian() * spreads[region] / Math.cos(Math.toRadians(latitude));
+            longitude = ((longitude + 180) % 360 + 360) % 360 - 180;
+
+            latitudes[airport] = Math.round(latitude * 1e6) / 1e6;
+            longitudes[airport] = Math.round(longitude * 1e6) / 1e6;
+            sizes[airport] = Math.pow(1 - random.nextDouble(), -1 / 1.2);
+            regions[airport] = region;
+            regionSizes[region]++;
+        }
+
+        regionAirports = new int[regionCount][];
+        for (int region = 0; region < regionCount; region++)
+            regionAirports[region] = new int[regionSizes[region]];
+        int[] cursors = new int[regionCount];
+        for (int airport = 0; airport < n; airport++)
+            regionAirports[regions[airport]][cursors[regions[airport]]++] = airport;
+
+        // The busiest airports of every region are its hubs.
+        hubs = new boolean[n];
+        regionHubs = new int[regionCount][];
+        int hubCount = 0;
+        for (int region = 0; region < regionCount; region++) {
+            int[] airports = regionAirports[region];
+            int count = Math.max(1, airports.length / AIRPORTS_PER_HUB);
+            regionHubs[region] = Arrays.stream(airports).boxed()
+                    .sorted((a, b) -> Double.compare(sizes[b], sizes[a]))
+                    .limit(count).mapToInt(Integer::intValue).toArray();
+            for (int hub : regionHubs[region])
+                hubs[hub] = true;
+            hubCount += count;
+        }
+        allHubs = new int[hubCount];
+        for (int airport = 0, i = 0; airport < n; airport++) {
+            if (hubs[airport])
+                allHubs[i++] = airport;
+        }
+
+        neighbourRegions = new int[regionCount][];
+        for (int region = 0; region < regionCount; region++) {
+            final int from = region;
+            neighbourRegions[region] = IntStream.range(0, regionCount).boxed()
+                    .sorted((a, b) -> Double.compare(
+                            GreatCircle.km(centreLatitudes[from], centreLongitudes[from], centreLatitudes[a], centreLongitudes[a]),
+                            GreatCircle.km(centreLatitudes[from], centreLongitudes[from], centreLatitudes[b], centreLongitudes[b])))
+                    .limit(NEIGHBOUR_REGIONS).mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private void foundAirlines(DatasetSink sink) throws IOException {
+        final int count = settings.airlines();
+        double[] hubWeights = new double[allHubs.length];
+        for (int i = 0; i < allHubs.length; i++)
+            hubWeights[i] = (i == 0 ? 0 : hubWeights[i - 1]) + sizes[allHubs[i]];
+
+        airlineFees = new double[count];
+        airlineRates = new double[count];
+        int[] homeHubs = new int[count];
+        int[] airlinesPerHub = new int[settings.airports()];
+        Set<String> names = new HashSet<>();
+        for (int airline = 0; airline < count; airline++) {
+            homeHubs[airline] = allHubs[pick(hubWeights, allHubs.length)];
+            airlinesPerHub[homeHubs[airline]]++;
+            // Low-cost carriers have a low fee and rate, legacy carriers a high one.
+            double positioning = random.nextDouble();
+            airlineFees[airline] = 20 + 60 * positioning;
+            airlineRates[airline] = 0.05 + 0.1 * positioning * (0.7 + 0.6 * random.nextDouble());
+
+            String name = capitalize(word(2)) + " " + AIRLINE_SUFFIXES[random.nextInt(AIRLINE_SUFFIXES.length)];
+            if (!names.add(name)) {
+                name += " " + code(airline);
+                names.add(name);
+            }
+            sink.accept(new Airline(FIRST_AIRLINE_ID + airline, name));
+        }
+
+        hubAirlines = new int[settings.airports()][];
+        for (int airline = 0; airline < count; airline++) {
+            int hub = homeHubs[airline];
+            if (hubAirlines[hub] == null)
+                hubAirlines[hub] = new int[airlinesPerHub[hub]];
+            hubAirlines[hub][--airlinesPerHub[hub]] = airline;
+        }
+    }
+
+    private void openRoutes(DatasetSink sink) throws IOException {
+        final int n = settings.airports();
+        final int links = Math.max(1, settings.routesPerAirport() / 2);
+        routePopularity = new double[Math.max(16, 2 * n * links)];
+        int[] nearestHubs = new int[NEAREST_HUBS];
+        for (int from = 0; from < n; from++) {
+            int region = regions[from];
+            int nearestCount = hubs[from] ? 0 : nearestHubs(from, nearestHubs);
+            for (int link = 0; link < links; link++) {
+                int to;
+                if (hubs[from]) {
+                    if (random.nextDouble() < HUB_TO_NEIGHBOUR_SHARE) {
+                        int[] neighbourHubs = regionHubs[neighbourRegions[region][random.nextInt(neighbourRegions[region].length)]];
+                        to = neighbourHubs[random.nextInt(neighbourHubs.length)];
+                    } else {
+                        to = allHubs[random.nextInt(allHubs.length)];
+                    }
+                } else if (nearestCount > 0 && random.nextDouble() < SPOKE_TO_HUB_SHARE) {
+                    // The nearest hubs are the likeliest.
+                    double u = random.nextDouble();
+                    to = nearestHubs[(int) (u * u * nearestCount)];
+                } else {
+                    int[] airports = regionAirports[region];
+                    to = airports[random.nextInt(airports.length)];
+                }
+                if (to == from)
+                    to = (from + 1) % n;
+
+                int airline = airlineOf(from, to);
+                double greatCircle = GreatCircle.km(latitudes[from], longitudes[from], latitudes[to], longitudes[to]);
+                int km = (int) Math.max(1, Math.min(40_075, Math.round(greatCircle * (1.02 + 0.1 * random.nextDouble()))));
+                double popularity = Math.sqrt(sizes[from] * sizes[to]);
+                sink.accept(route(from, to, airline, km, popularity));
+                sink.accept(route(to, from, airline, km, popularity));
+            }
+        }
+    }
+
+    private Route route(int from, int to, int airline, int km, double popularity) {
+        double rate = airlineRates[airline] * (0.85 + 0.4 * random.nextDouble()) * (hubs[from] && hubs[to] ? 0.8 : 1);
+        double price = Math.round((airlineFees[airline] + km * rate) * 100) / 100.0;
+
+        if (routeCount == routePopularity.length)
+            routePopularity = Arrays.copyOf(routePopularity, routeCount * 2);
+        routePopularity[routeCount] = (routeCount == 0 ? 0 : routePopularity[routeCount - 1]) + popularity;
+        return new Route(FIRST_ROUTE_ID + routeCount++, FIRST_AIRPORT_ID + from, FIRST_AIRPORT_ID + to,
+                FIRST_AIRLINE_ID + airline, km, price);
+    }
+
+    /**
+     * Finds the hubs of the region of an airport nearest to it, nearest first.
+     *
+     * @return the number of hubs found, at most {@link #NEAREST_HUBS}
+     */
+    private int nearestHubs(int airport, int[] nearest) {
+        double[] distances = new double[nearest.length];
+        int count = 0;
+        for (int hub : regionHubs[regions[airport]]) {
+            // Equirectangular approximation: only the order matters.
+            double dx = (longitudes[hub] - longitudes[airport]) * Math.cos(Math.toRadians(latitudes[airport]));
+            double dy = latitudes[hub] - latitudes[airport];
+            double distance = dx * dx + dy * dy;
+
+            int position = count < nearest.length ? count++ : nearest.length;
+            while (position > 0 && distances[position - 1] > distance) {
+                if (position < nearest.length) {
+                    distances[position] = distances[position - 1];
+                    nearest[position] = nearest[position - 1];
+                }
+                position--;
+            }
+            if (position < nearest.length) {
+                distances[position] = distance;
+                nearest[position] = hub;
+            }
+        }
+
+        return count;
+    }
+
+    private int airlineOf(int from, int to) {
+        int[] fromAirlines = hubAirlines[from];
+        int[] toAirlines = hubAirlines[to];
+        int based = (fromAirlines == null ? 0 : fromAirlines.length) + (toAirlines == null ? 0 : toAirlines.length);
+        if (based == 0 || random.nextDouble() >= HOME_AIRLINE_SHARE)
+            return random.nextInt(settings.airlines());
+
+        int index = random.nextInt(based);
+        return fromAirlines != null && index < fromAirlines.length ? fromAirlines[index]
+                : toAirlines[index - (fromAirlines == null ? 0 : fromAirlines.length)];
+    }
+
+    private void bookTrips(DatasetSink sink) throws IOException {
+        if (settings.passengers() == 0 || routeCount == 0)
+            return;
+
+        long days = ChronoUnit.DAYS.between(settings.firstTripDate(), settings.lastTripDate()) + 1;
+        for (int trip = 0; trip < settings.trips(); trip++) {
+            double u = random.nextDouble();
+            int passenger = (int) (u * u * settings.passengers());
+            int route = pick(routePopularity, routeCount);
+            LocalDate date = settings.firstTripDate().plusDays((long) (random.nextDouble() * days));
+            sink.accept(new Trip(FIRST_TRIP_ID + trip, FIRST_PASSENGER_ID + passenger, FIRST_ROUTE_ID + route, date));
+        }
+    }
+
+    /**
+     * Draws an index with a probability proportional to its weight.
+     *
+     * @param cumulativeWeights the running sums of the weights
+     * @param count             the number of weights
+     */
+    private int pick(double[] cumulativeWeights, int count) {
+        double target = random.nextDouble() * cumulativeWeights[count - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, 0, count, target);
+        return Math.min(count - 1, index >= 0 ? index + 1 : -index - 1);
+    }
+
+    private String cityName() {
+        return capitalize(word(2 + random.nextInt(2)));
+    }
+
+    private String word(int syllables) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < syllables; i++)
+            word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        return word.toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    /**
+     * @return a code of at least three letters unique to the index, "AAA" for 0
+     */
+    private static String code(int index) {
+        StringBuilder code = new StringBuilder();
+        do {
+            code.append((char) ('A' + index % 26));
+            index /= 26;
+        } while (index > 0 || code.length() < 3);
+        return code.reverse().toString();
+    }
+
+    /**
+     * @param seed             the seed of the generator, equal settings giving equal datasets
+     * @param airports         the number of airports, at least 2
+     * @param airlines         the number of airlines, at least 1
+     * @param routesPerAirport the average number of routes leaving each airport, at least 2
+     * @param passengers       the number of passengers
+     * @param trips            the number of trips, none if there are no passengers
+     * @param firstTripDate    the date of the earliest trips
+     * @param lastTripDate     the date of the latest trips
+     */
+    public record Settings(long seed, int airports, int airlines, int routesPerAirport, int passengers, int trips,
+                           LocalDate firstTripDate, LocalDate lastTripDate) {
+        public Settings {
+            if (airports < 2)
+                throw new IllegalArgumentException("At least 2 airports are needed: " + airports);
+            if (airlines < 1)
+                throw new IllegalArgumentException("At least 1 airline is needed: " + airlines);
+            if (routesPerAirport < 2)
+                throw new IllegalArgumentException("At least 2 routes per airport are needed: " + routesPerAirport);
+            if (passengers < 0 || trips < 0)
+                throw new IllegalArgumentException("Passengers and trips must not be negative");
+            if (lastTripDate.isBefore(firstTripDate))
+                throw new IllegalArgumentException("Trip dates are reversed: " + firstTripDate + " - " + lastTripDate);
+        }
+
+        /**
+         * @return settings for a network of the given size, with an airline per 50 airports, 8 routes per airport,
+         * 20 passengers per airport, 5 trips per passenger, and trips over the year 2024
+         */
+        public static Settings of(long seed, int airports) {
+            return new Settings(seed, airports, Math.max(1, airports / 50), 8, 20 * airports, 100 * airports,
+                    LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31));
+        }
+
+        public Settings withAirlines(int airlines) {
+            return new Settings(seed, airports, airlines, routesPerAirport, passengers, trips, firstTripDate, lastTripDate);
+        }
+
+        public Settings withRoutesPerAirport(int routesPerAirport) {
+            return new Settings(seed, airports, airlines, routesPerAirport, passengers, trips, firstTripDate, lastTripDate);
+        }
+
+        public Settings withPassengers(int passengers) {
+            return new Settings(seed, airports, airlines, routesPerAirport, passengers, trips, firstTripDate, lastTripDate);
+        }
+
+        public Settings withTrips(int trips) {
+            return new Settings(seed, airports, airlines, routesPerAirport, passengers, trips, firstTripDate, lastTripDate);
+        }
+
+        public Settings withTripDates(LocalDate firstTripDate, LocalDate lastTripDate) {
+            return new Settings(seed, airports, airlines, routesPerAirport, passengers, trips, firstTripDate, lastTripDate);
+        }
+    }
+}
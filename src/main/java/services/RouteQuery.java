@@ -0,0 +1,23 @@
+package services;
+
+import entities.Airport;
+import entities.Route;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Request for the cheapest itinerary between two airports, as resolved in bulk by {@link BatchRouteService}.
+ *
+ * @param start  the departure airport
+ * @param end    the destination airport
+ * @param metric the metric to minimize (e.g., RouteMetric.KM for distance, RouteMetric.PRICE for cost)
+ */
+public record RouteQuery(Airport start, Airport end, ToDoubleFunction<Route> metric) {
+    /**
+     * @param query  the resolved query
+     * @param routes the itinerary, or an empty list if no route exists
+     */
+    public record Result(RouteQuery query, List<Route> routes) {
+    }
+}
@@ -3,12 +3,25 @@ package services;
 import entities.Airport;
 import entities.Route;
 import org.apache.logging.log4j.Level;
+import routing.AStar;
+import routing.AllPairs;
+import routing.BidirectionalDijkstra;
+import routing.ConstrainedSearch;
+import routing.ContractionHierarchy;
+import routing.Dijkstra;
+import routing.FloydWarshall;
+import routing.KShortestPaths;
+import routing.ParetoSearch;
+import routing.RouteConstraints;
+import routing.RouteGraph;
+import routing.RouteMetric;
 import utils.LoggerService;
 
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.ToDoubleFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public final class RouteService {
 
@@ -16,6 +29,9 @@ public final class RouteService {
     private final List<Airport> airports;
     private final Airport start;
     private final Airport end;
+    private RouteGraph graph;
+    private long graphVersion;
+    private Map<Integer, Airport> airportsById;
 
     public RouteService(List<Airport> airports, Airport start, Airport end) {
         this.airports = airports;
@@ -24,160 +40,279 @@ public final class RouteService {
     }
 
     /**
-     * Creates the graph with every row and column as a destination, having te direct distance between them as
-     * the value inside the matrix, if there is none is INF, the index are align with the list sent by param
-     * for example airports.get(0) is the row 0 in the matrix
+     * Creates a service over an already built network, e.g. restored from a {@link GraphSnapshotStore snapshot},
+     * without touching the database.
      *
-     * @param routes List of routes connecting airports with distances.
-     * @return A matrix representing the distances between each airport pair.
+     * @param graph The route network.
+     * @param start The departure airport.
+     * @param end   The destination airport.
      */
-    private double[][] makeGraph(List<Route> routes, ToDoubleFunction<Route> function) {
-        final int size = airports.size();
-        double[][] graph = new double[size][size];
-
-        Map<String, List<Route>> routeMap = routes.stream()
-                .collect(Collectors.groupingBy(r -> r.getIdFrom() + "-" + r.getIdTo()));
-
-        for (int i = 0; i < size; i++) {
-            Airport airportFrom = airports.get(i);
-
-            for (int j = 0; j < size; j++) {
-                if (i == j) {
-                    graph[i][j] = 0;
-                    continue;
-                }
-
-                Airport airportTo = airports.get(j);
-
-                List<Route> possibleRoutes = routeMap.get(airportFrom.getId() + "-" + airportTo.getId());
-                if (possibleRoutes != null) {
-                    graph[i][j] = possibleRoutes.stream()
-                            .mapToDouble(function).min()
-                            .orElse(INF);
-                } else {
-                    graph[i][j] = INF;
-                }
-            }
-        }
-
-        return graph;
+    public RouteService(RouteGraph graph, Airport start, Airport end) {
+        this(graph.airports(), start, end);
+        this.graph = graph;
+        this.graphVersion = ItineraryCache.version();
     }
 
     /**
-     * Applies the Floyd-Warshall algorithm to compute the shortest paths and track each path.
-     * Updates the graph with the shortest distances and the paths list with corresponding paths.
+     * Returns the CSR route network of this service on first use: the snapshot network if it covers the same
+     * airports, in whatever order, otherwise one built from the routes fetched from the database.
+     * Subsequent queries (e.g. by distance and then by price) reuse the same graph.
      *
-     * @param graph The distance matrix between airports.
-     * @param paths A 3D list storing the paths for each airport pair.
+     * @return The route network over the airports of this service.
      */
-    private static void applyFloydWarshall(double[][] graph, List<List<List<Integer>>> paths) {
-        initializeParentArray(graph, paths);
-        final int V = graph.length;
-        for (int i = 0; i < V; i++) {
-            for (int j = 0; j < V; j++) {
-                for (int k = 0; k < V; k++) {
-                    if (graph[j][i] + graph[i][k] < graph[j][k]) {
-                        graph[j][k] = graph[j][i] + graph[i][k];
-
-                        List<Integer> newPath = new ArrayList<>(paths.get(j).get(i));
-
-                        newPath.removeLast();
-                        newPath.addAll(paths.get(i).get(k));
-                        paths.get(j).set(k, newPath);
-                    }
-                }
-            }
+    private RouteGraph getGraph() {
+        if (graph == null) {
+            graphVersion = ItineraryCache.version();
+            RouteGraph snapshot = getSnapshotGraph();
+            graph = snapshot != null && snapshot.hasSameAirports(airports) ? snapshot : buildGraph(airports);
+        }
+
+        return graph;
+    }
+
+    private static RouteGraph getSnapshotGraph() {
+        try {
+            return GraphSnapshotStore.load().graph();
+        } catch (Exception e) {
+            return null;
         }
     }
 
     /**
-     * Initializes the parent array and paths list for the Floyd-Warshall algorithm.
-     * Each path initially consists of the start and end nodes of each direct route.
+     * Builds the network from the routes streamed from the database, so they are never all held on the heap.
      *
-     * @param graph The distance matrix for airport routes.
-     * @param paths A 3D list to hold each path from source to destination.
+     * @param airports The airports of the network.
+     * @return The network, without routes if they cannot be read.
      */
-    private static void initializeParentArray(double[][] graph, List<List<List<Integer>>> paths) {
-        final int V = graph.length;
-        for (int i = 0; i < V; i++) {
-            paths.add(new ArrayList<>());
-            for (int j = 0; j < V; j++) {
-                List<Integer> path = new ArrayList<>();
-                if (graph[i][j] != INF) {
-                    path.add(i);
-                    path.add(j);
-                }
-                paths.get(i).add(path);
-            }
+    static RouteGraph buildGraph(List<Airport> airports) {
+        try (MyBatis<Route> routesDAO = new MyBatis<>(Route.class)) {
+            return buildGraph(airports, routesDAO);
+        } catch (Exception e) {
+            return new RouteGraph.Builder(airports, 0).build();
         }
     }
 
-    private static List<Route> getRoutes() {
-        try (MyBatis<Route> routesDAO = new MyBatis<>(Route.class)) {
-            return routesDAO.get();
-        } catch (Exception e) {
-            return List.of();
+    static RouteGraph buildGraph(List<Airport> airports, IDao<Route> routesDAO) {
+        RouteGraph.Builder builder = new RouteGraph.Builder(airports, 0);
+        try (Stream<Route> routes = routesDAO.stream()) {
+            routes.forEach(builder::add);
         }
+        return builder.build();
+    }
+
+    /**
+     * Retrieves the optimal route path between two specified airports, based on the provided route metric,
+     * using {@link RoutingMode#DIJKSTRA}.
+     *
+     * @param routeFunction A function defining the metric for route calculation (e.g., RouteMetric.KM for distance, RouteMetric.PRICE for cost).
+     * @return A list of Route objects representing the optimal path between the start and end airports, or an empty list if no route exists.
+     * @see #getRoutesBetweenAirports(ToDoubleFunction, RoutingMode)
+     */
+    public List<Route> getRoutesBetweenAirports(ToDoubleFunction<Route> routeFunction) {
+        return getRoutesBetweenAirports(routeFunction, RoutingMode.DIJKSTRA);
     }
 
     /**
      * Retrieves the optimal route path between two specified airports, based on the provided route metric.
      * <p>
-     * Uses the Floyd-Warshall algorithm to calculate the optimal path, allowing for selection
-     * between shortest and cheapest paths through the `routeFunction` parameter.
-     * If no path exists between the airports, an empty list is returned.
+     * Allows for selection between shortest and cheapest paths through the `routeFunction` parameter, and
+     * between a single-source search and the (sequential or parallel) all-pairs Floyd-Warshall computation
+     * through the `mode` parameter.
+     * Itineraries of {@link RouteMetric} metrics are served from the {@link ItineraryCache} when possible, without
+     * loading the route network. If no path exists between the airports, an empty list is returned.
      *
-     * @param routeFunction A function defining the metric for route calculation (e.g., Route::getKm for distance, Route::getPrice for cost).
+     * @param routeFunction A function defining the metric for route calculation (e.g., RouteMetric.KM for distance, RouteMetric.PRICE for cost).
+     * @param mode          The algorithm used to compute the path.
      * @return A list of Route objects representing the optimal path between the start and end airports, or an empty list if no route exists.
      */
-    public List<Route> getRoutesBetweenAirports(ToDoubleFunction<Route> routeFunction) {
-        List<Route> routes;
-        final int startIndex;
-        final int endIndex;
-        try {
-            if (start == end)
-                throw new Exception("Same airport selected as departure and destination.");
+    public List<Route> getRoutesBetweenAirports(ToDoubleFunction<Route> routeFunction, RoutingMode mode) {
+        RouteMetric cachedMetric = routeFunction instanceof RouteMetric metric && start != end ? metric : null;
+        List<Route> pathRoutes = cachedMetric == null ? null : ItineraryCache.get(start.getId(), end.getId(), cachedMetric);
+        if (pathRoutes == null) {
+            int[] endpoints = resolveEndpoints();
+            if (endpoints == null)
+                return List.of();
+
+            Itinerary itinerary = findRoutes(getGraph(), routeFunction, mode, endpoints[0], endpoints[1]);
+            pathRoutes = itinerary.routes();
+            if (cachedMetric != null)
+                ItineraryCache.put(start.getId(), end.getId(), cachedMetric, pathRoutes, itinerary.version());
+        }
 
-            startIndex = airports.indexOf(start);
-            endIndex = airports.indexOf(end);
-            if (startIndex == -1 || endIndex == -1)
-                throw new Exception("The airport list does not contain specified airports.");
+        if (pathRoutes.isEmpty())
+            LoggerService.consoleLog(Level.INFO, "No available path between the selected airports.");
 
-            routes = getRoutes();
-            if (routes.isEmpty())
-                throw new Exception("No routes found in database.");
-        } catch (Exception e) {
-            LoggerService.log(Level.ERROR, e.getMessage());
+        return pathRoutes;
+    }
+
+    private Itinerary findRoutes(RouteGraph graph, ToDoubleFunction<Route> routeFunction, RoutingMode mode,
+                                 int startIndex, int endIndex) {
+        return switch (mode) {
+            case DIJKSTRA -> new Itinerary(graph.routes(Dijkstra.findPath(graph, routeFunction, startIndex, endIndex)),
+                    graphVersion);
+            case A_STAR -> new Itinerary(graph.routes(AStar.findPath(graph, routeFunction, startIndex, endIndex)),
+                    graphVersion);
+            case BIDIRECTIONAL_DIJKSTRA -> new Itinerary(
+                    graph.routes(BidirectionalDijkstra.findPath(graph, routeFunction, startIndex, endIndex)),
+                    graphVersion);
+            case CONTRACTION_HIERARCHIES -> getContractionHierarchyRoutes(graph, routeFunction, startIndex, endIndex);
+            case FLOYD_WARSHALL, PARALLEL_FLOYD_WARSHALL ->
+                    getAllPairsRoutes(graph, routeFunction, mode, startIndex, endIndex);
+        };
+    }
+
+    /**
+     * Reads the path between the two airports from an all-pairs result.
+     * {@link RouteMetric} results are shared through {@link AllPairsCache}, any other metric is computed on this graph.
+     */
+    private Itinerary getAllPairsRoutes(RouteGraph graph, ToDoubleFunction<Route> routeFunction, RoutingMode mode,
+                                        int startIndex, int endIndex) {
+        if (!(routeFunction instanceof RouteMetric metric))
+            return new Itinerary(applyAllPairs(graph, routeFunction, mode).routes(startIndex, endIndex), graphVersion);
+
+        long version = ItineraryCache.version();
+        AllPairs allPairs = AllPairsCache.get(metric, mode);
+        int from = allPairs.graph().indexOf(start.getId());
+        int to = allPairs.graph().indexOf(end.getId());
+        return new Itinerary(from == -1 || to == -1 ? List.of() : allPairs.routes(from, to), version);
+    }
+
+    /**
+     * Queries the contraction hierarchy of the metric.
+     * {@link RouteMetric} hierarchies are shared through {@link ContractionHierarchyCache}, any other metric is
+     * preprocessed on this graph. A shared hierarchy may predate the latest changes while it is being rebuilt, so
+     * its itineraries carry the version it was built on, and are not cached as current ones.
+     */
+    private Itinerary getContractionHierarchyRoutes(RouteGraph graph, ToDoubleFunction<Route> routeFunction,
+                                                    int startIndex, int endIndex) {
+        if (!(routeFunction instanceof RouteMetric metric))
+            return new Itinerary(ContractionHierarchy.build(graph, routeFunction).routes(startIndex, endIndex),
+                    graphVersion);
+
+        ContractionHierarchyCache.Built built = ContractionHierarchyCache.get(metric);
+        ContractionHierarchy hierarchy = built.hierarchy();
+        int from = hierarchy.graph().indexOf(start.getId());
+        int to = hierarchy.graph().indexOf(end.getId());
+        return new Itinerary(from == -1 || to == -1 ? List.of() : hierarchy.routes(from, to), built.version());
+    }
+
+    /**
+     * Retrieves the optimal route path between the two airports among the itineraries satisfying the constraints,
+     * e.g. at most 2 stops, only some airlines, or under a price cap.
+     *
+     * @param routeFunction A function defining the metric for route calculation (e.g., RouteMetric.KM for distance, RouteMetric.PRICE for cost).
+     * @param constraints   The restrictions on the itinerary (see {@link RouteConstraints}).
+     * @return A list of Route objects representing the optimal path satisfying the constraints, or an empty list if there is none.
+     */
+    public List<Route> getConstrainedRoutes(ToDoubleFunction<Route> routeFunction, RouteConstraints constraints) {
+        int[] endpoints = resolveEndpoints();
+        if (endpoints == null)
             return List.of();
-        }
 
-        double[][] graph = makeGraph(routes, routeFunction);
-        List<List<List<Integer>>> paths = new ArrayList<>();
-        applyFloydWarshall(graph, paths);
+        final RouteGraph graph = getGraph();
+        List<Route> pathRoutes = graph.routes(
+                ConstrainedSearch.findPath(graph, routeFunction, endpoints[0], endpoints[1], constraints));
+        if (pathRoutes.isEmpty())
+            LoggerService.consoleLog(Level.INFO, "No available path satisfying the constraints between the selected airports.");
+
+        return pathRoutes;
+    }
+
+    /**
+     * Retrieves every itinerary between the two airports for which no other itinerary is both shorter and cheaper.
+     * <p>
+     * Distance and price are optimized together in a single search, so the first itinerary is the shortest one,
+     * the last is the cheapest one, and the ones in between are the trade-offs between them.
+     * Frontiers are served from the {@link ItineraryCache} when possible, without loading the route network.
+     *
+     * @return The non-dominated itineraries ordered by increasing distance (and decreasing price), or an empty list if no route exists.
+     */
+    public List<List<Route>> getParetoRoutes() {
+        List<List<Route>> itineraries = start == end ? null : ItineraryCache.getFrontier(start.getId(), end.getId());
+        if (itineraries == null) {
+            int[] endpoints = resolveEndpoints();
+            if (endpoints == null)
+                return List.of();
+
+            final RouteGraph graph = getGraph();
+            itineraries = ParetoSearch.findFrontier(graph, endpoints[0], endpoints[1]).stream()
+                    .map(graph::routes)
+                    .toList();
+            ItineraryCache.putFrontier(start.getId(), end.getId(), itineraries, graphVersion);
+        }
 
-        if (graph[startIndex][endIndex] == INF) {
+        if (itineraries.isEmpty())
             LoggerService.consoleLog(Level.INFO, "No available path between the selected airports.");
+
+        return itineraries;
+    }
+
+    /**
+     * Retrieves up to k alternative itineraries between the two airports, none of them visiting an airport twice.
+     *
+     * @param routeFunction The metric to minimize (e.g., RouteMetric.KM for distance, RouteMetric.PRICE for cost).
+     * @param k             The maximum number of itineraries to return.
+     * @return The itineraries in ascending cost order, or an empty list if no route exists.
+     */
+    public List<List<Route>> getKShortestRoutes(ToDoubleFunction<Route> routeFunction, int k) {
+        int[] endpoints = resolveEndpoints();
+        if (endpoints == null)
             return List.of();
-        }
 
-        List<Integer> pathAirportIndex = paths.get(startIndex).get(endIndex);
+        final RouteGraph graph = getGraph();
+        List<int[]> paths = KShortestPaths.findPaths(graph, routeFunction, endpoints[0], endpoints[1], k);
+        if (paths.isEmpty())
+            LoggerService.consoleLog(Level.INFO, "No available path between the selected airports.");
+
+        return paths.stream().map(graph::routes).toList();
+    }
+
+    /**
+     * Validates the selected airports and resolves their indexes in the route network.
+     *
+     * @return The start and end airport indexes, or null if no path can be searched (the reason is logged).
+     */
+    private int[] resolveEndpoints() {
+        try {
+            if (start == end)
+                throw new Exception("Same airport selected as departure and destination.");
 
-        List<Route> pathRoutes = new ArrayList<>();
-        for (int i = 0; i < pathAirportIndex.size() - 1; i++) {
-            int fromIndex = pathAirportIndex.get(i);
-            int toIndex = pathAirportIndex.get(i + 1);
+            RouteGraph graph = getGraph();
+            int startIndex = graph.indexOf(start.getId());
+            int endIndex = graph.indexOf(end.getId());
+            if (startIndex == -1 || endIndex == -1)
+                throw new Exception("The airport list does not contain specified airports.");
 
-            Airport airportFrom = airports.get(fromIndex);
-            Airport airportTo = airports.get(toIndex);
+            if (graph.edgeCount() == 0)
+                throw new Exception("No routes found in database.");
 
-            routes.stream()
-                    .filter(r -> r.getIdFrom() == airportFrom.getId() && r.getIdTo() == airportTo.getId())
-                    .min(Comparator.comparingDouble(routeFunction)).ifPresent(pathRoutes::add);
+            return new int[]{startIndex, endIndex};
+        } catch (Exception e) {
+            LoggerService.log(Level.ERROR, e.getMessage());
+            return null;
         }
+    }
 
-        return pathRoutes;
+    /**
+     * Computes the distances and paths between every pair of airports, e.g. to precompute every itinerary in bulk.
+     *
+     * @param airports      The airports of the network.
+     * @param routeFunction The metric to minimize.
+     * @param mode          {@link RoutingMode#FLOYD_WARSHALL} or {@link RoutingMode#PARALLEL_FLOYD_WARSHALL}.
+     * @return The all-pairs result, from which the path of any pair can be rebuilt.
+     * @throws IllegalArgumentException if the mode is not an all-pairs mode.
+     */
+    public static AllPairs computeAllPairs(List<Airport> airports, ToDoubleFunction<Route> routeFunction, RoutingMode mode) {
+        return applyAllPairs(buildGraph(airports), routeFunction, mode);
     }
 
+    static AllPairs applyAllPairs(RouteGraph graph, ToDoubleFunction<Route> routeFunction, RoutingMode mode) {
+        return switch (mode) {
+            case FLOYD_WARSHALL -> FloydWarshall.apply(graph, routeFunction);
+            case PARALLEL_FLOYD_WARSHALL -> FloydWarshall.applyBlocked(graph, routeFunction);
+            default -> throw new IllegalArgumentException(mode + " is not an all-pairs mode.");
+        };
+    }
 
     /**
      * Prints the details of a route path between two airports, including each segment's distance and price,
@@ -202,8 +337,8 @@ public final class RouteService {
                 .map(route -> String.format(
                         "%d - %s -> %s (%d km, $%.2f)",
                         index.getAndIncrement(),
-                        findAirport(airports, route.getIdFrom()).getName(),
-                        findAirport(airports, route.getIdTo()).getName(),
+                        findAirport(route.getIdFrom()).getName(),
+                        findAirport(route.getIdTo()).getName(),
                         route.getKm(), route.getPrice()
                 ))
                 .collect(Collectors.joining("\n"));
@@ -216,18 +351,30 @@ public final class RouteService {
     }
 
     /**
-     * Finds an airport by its ID from a list of airports.
+     * Finds an airport by its ID in constant time, through the airport index of the route network if it is loaded,
+     * otherwise through an index of the airport list, so that itineraries served from the cache do not load it.
      *
-     * @param airports  the list of available airports
      * @param airportId the ID of the airport to find
      * @return the Airport object with the specified ID
      * @throws NoSuchElementException if no airport with the given ID is found
      */
-    private static Airport findAirport(List<Airport> airports, int airportId) {
-        return airports.stream()
-                .filter(a -> a.getId() == airportId)
-                .findFirst()
-                .orElseThrow(() -> new NoSuchElementException("Airport not found"));
+    private Airport findAirport(int airportId) {
+        if (graph != null) {
+            int index = graph.indexOf(airportId);
+            if (index == -1)
+                throw new NoSuchElementException("Airport not found");
+
+            return graph.airport(index);
+        }
+
+        if (airportsById == null)
+            airportsById = airports.stream().collect(Collectors.toMap(Airport::getId, airport -> airport));
+
+        Airport airport = airportsById.get(airportId);
+        if (airport == null)
+            throw new NoSuchElementException("Airport not found");
+
+        return airport;
     }
 
     /**
@@ -243,15 +390,15 @@ public final class RouteService {
         }
 
         List<String> shortestRoute = shortestTripRoutes.stream()
-                .map(r -> findAirport(airports, r.getIdFrom()).getName())
+                .map(r -> findAirport(r.getIdFrom()).getName())
                 .collect(Collectors.toList());
-        shortestRoute.add(findAirport(airports, shortestTripRoutes.getLast().getIdTo()).getName());
+        shortestRoute.add(findAirport(shortestTripRoutes.getLast().getIdTo()).getName());
         double shortestDistance = shortestTripRoutes.stream().mapToInt(Route::getKm).sum();
 
         List<String> cheapestRoute = cheapestTripRoutes.stream()
-                .map(r -> findAirport(airports, r.getIdFrom()).getName())
+                .map(r -> findAirport(r.getIdFrom()).getName())
                 .collect(Collectors.toList());
-        cheapestRoute.add(findAirport(airports, cheapestTripRoutes.getLast().getIdTo()).getName());
+        cheapestRoute.add(findAirport(cheapestTripRoutes.getLast().getIdTo()).getName());
         double cheapestPrice = cheapestTripRoutes.stream().mapToDouble(Route::getPrice).sum();
 
         // Log routes
@@ -263,4 +410,11 @@ public final class RouteService {
                 cheapestPrice
         );
     }
+
+    /**
+     * @param routes  the legs of the itinerary
+     * @param version the {@link ItineraryCache#version()} of the network it was computed on
+     */
+    private record Itinerary(List<Route> routes, long version) {
+    }
 }
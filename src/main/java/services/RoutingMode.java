@@ -0,0 +1,24 @@
+package services;
+
+/**
+ * Algorithm used by {@link RouteService} to resolve a path between two airports.
+ */
+public enum RoutingMode {
+    /** Single-source search from the departure airport, stopping as soon as the destination is settled. */
+    DIJKSTRA,
+    /** Single-source search guided towards the destination by the great-circle distance (km metric only). */
+    A_STAR,
+    /** Simultaneous searches from the departure airport and backwards from the destination, until they meet. */
+    BIDIRECTIONAL_DIJKSTRA,
+    /** Upward bidirectional search over a contraction hierarchy preprocessed once per metric. */
+    CONTRACTION_HIERARCHIES,
+    /** All-pairs computation over every airport, from which the requested pair is read. */
+    FLOYD_WARSHALL,
+    /** Cache-blocked all-pairs computation whose independent tiles run in parallel on a ForkJoinPool. */
+    PARALLEL_FLOYD_WARSHALL;
+
+    @Override
+    public String toString() {
+        return super.toString().replace('_', ' ');
+    }
+}
@@ -0,0 +1,106 @@
+package services;
+
+import org.apache.ibatis.datasource.pooled.PoolState;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.logging.log4j.Level;
+import utils.LoggerService;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide registry of the session factories built from {@code mybatis-config.xml}, one per environment, each
+ * built on first use and shared by every DAO and session afterward, along with its connection pool.
+ * <p>
+ * The pool is sized by the optional {@code POOL_MAXIMUM_ACTIVE}, {@code POOL_MAXIMUM_IDLE} and
+ * {@code POOL_TIME_TO_WAIT} (milliseconds) entries of {@code config.properties}.
+ */
+public final class SessionFactories {
+    private static final String CONFIG_RESOURCE = "mybatis-config.xml";
+    /** Key of the default environment, as {@link ConcurrentHashMap} does not accept null. */
+    private static final String DEFAULT_ENVIRONMENT = "";
+    private static final Map<String, SqlSessionFactory> FACTORIES = new ConcurrentHashMap<>();
+
+    private SessionFactories() {
+    }
+
+    /**
+     * Returns the factory of the default environment.
+     *
+     * @throws IOException if the configuration cannot be read
+     */
+    public static SqlSessionFactory get() throws IOException {
+        return get(DEFAULT_ENVIRONMENT);
+    }
+
+    /**
+     * Returns the factory of the given environment, building it on first call.
+     *
+     * @param environment an environment id of the configuration
+     * @throws IOException if the configuration cannot be read
+     */
+    public static SqlSessionFactory get(String environment) throws IOException {
+        SqlSessionFactory factory = FACTORIES.get(environment);
+        if (factory != null)
+            return factory;
+
+        try {
+            return FACTORIES.computeIfAbsent(environment, SessionFactories::build);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static SqlSessionFactory build(String environment) {
+        long start = System.nanoTime();
+        try (Reader reader = Resources.getResourceAsReader(CONFIG_RESOURCE)) {
+            SqlSessionFactory factory = environment.equals(DEFAULT_ENVIRONMENT)
+                    ? new SqlSessionFactoryBuilder().build(reader)
+                    : new SqlSessionFactoryBuilder().build(reader, environment);
+
+            String pool = factory.getConfiguration().getEnvironment().getDataSource() instanceof PooledDataSource pooled
+                    ? ", pool of " + pooled.getPoolMaximumActiveConnections() + " connections" : "";
+            LoggerService.log(Level.INFO, "Session factory built in " + (System.nanoTime() - start) / 1_000_000 + " ms"
+                    + pool);
+            return factory;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the state of the connection pool of the default environment.
+     *
+     * @return the pool state, or null if the factory is not built yet or the data source is not pooled
+     */
+    public static PoolStats poolStats() {
+        SqlSessionFactory factory = FACTORIES.get(DEFAULT_ENVIRONMENT);
+        if (factory == null || !(factory.getConfiguration().getEnvironment().getDataSource() instanceof PooledDataSource pooled))
+            return null;
+
+        PoolState state = pooled.getPoolState();
+        return new PoolStats(pooled.getPoolMaximumActiveConnections(), state.getActiveConnectionCount(),
+                state.getIdleConnectionCount(), state.getRequestCount(), state.getHadToWaitCount(),
+                state.getAverageWaitTime(), state.getClaimedOverdueConnectionCount(), state.getBadConnectionCount());
+    }
+
+    /**
+     * @param maximumActive     the size of the pool
+     * @param active            the connections checked out
+     * @param idle              the connections available
+     * @param requests          the connections requested
+     * @param waits             the requests that waited because the pool was exhausted
+     * @param averageWaitMillis the average wait of those requests
+     * @param overdueClaims     the connections reclaimed from a holder exceeding the maximum checkout time
+     * @param badConnections    the invalid connections discarded
+     */
+    public record PoolStats(int maximumActive, int active, int idle, long requests, long waits, long averageWaitMillis,
+                            long overdueClaims, long badConnections) {
+    }
+}
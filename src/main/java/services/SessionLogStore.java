@@ -0,0 +1,323 @@
+package services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.Level;
+import utils.LoggerService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Session log stored as segments: the active JSON Lines file, appended to by a {@link SessionLogWriter}, and the
+ * closed segments it was rotated into.
+ * <p>
+ * A closed segment {@code <name>-<yyyyMMdd-HHmmss>-<sequence>.jsonl} is compressed to {@code .jsonl.gz}, next to a sidecar
+ * {@code .jsonl.idx} holding the first and last {@code start_time} of its sessions, so {@link #sessionsBetween} opens
+ * only the segments overlapping the requested range. A segment left uncompressed by a crash is archived the next time
+ * a writer starts, and read as is until then. The time the active segment was started, from which its age is counted,
+ * is kept in a sidecar {@code .jsonl.opened}.
+ */
+public final class SessionLogStore {
+    private static final String ACTIVE_SUFFIX = ".jsonl";
+    private static final String ARCHIVE_SUFFIX = ".gz";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String OPENED_SUFFIX = ".opened";
+    private static final String START_TIME = "start_time";
+    private static final DateTimeFormatter SEGMENT_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path active;
+    private final String name;
+    private final Rotation rotation;
+    private final ObjectMapper mapper;
+
+    /**
+     * @param active   the active segment, whose name ends with {@code .jsonl}
+     * @param rotation when the active segment is closed
+     * @param mapper   the mapper reading the sessions and the indexes
+     */
+    public SessionLogStore(Path active, Rotation rotation, ObjectMapper mapper) {
+        String fileName = active.getFileName().toString();
+        if (!fileName.endsWith(ACTIVE_SUFFIX))
+            throw new IllegalArgumentException("Not a JSON Lines file: " + active);
+
+        this.active = active.toAbsolutePath();
+        this.name = fileName.substring(0, fileName.length() - ACTIVE_SUFFIX.length());
+        this.rotation = rotation;
+        this.mapper = mapper;
+    }
+
+    public Path activeSegment() {
+        return active;
+    }
+
+    public Rotation rotation() {
+        return rotation;
+    }
+
+    /**
+     * Returns when the active segment was started, as recorded in its sidecar by the writer that started it. The
+     * creation time of the file cannot tell: most Linux file systems do not report it, and the modification time is
+     * returned instead.
+     *
+     * @param empty whether the active segment is empty, in which case it starts now
+     * @return the start time in epoch milliseconds, now if it was never recorded
+     */
+    long activeSegmentOpenedAt(boolean empty) throws IOException {
+        Path opened = active.resolveSibling(active.getFileName() + OPENED_SUFFIX);
+        if (!empty) {
+            try {
+                return Long.parseLong(Files.readString(opened).strip());
+            } catch (NoSuchFileException | NumberFormatException e) {
+                // Started before the sidecar existed, or being recorded by another process: its age starts now.
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        Files.writeString(opened, Long.toString(now));
+        return now;
+    }
+
+    /**
+     * Renames the active segment to a closed segment, the caller holding its lock.
+     *
+     * @return the closed segment, to be {@linkplain #archive archived}
+     */
+    Path closeActiveSegment() throws IOException {
+        String stamp = LocalDateTime.now().format(SEGMENT_TIME);
+        Path closed;
+        int sequence = 0;
+        do {
+            closed = active.resolveSibling(String.format("%s-%s-%03d%s", name, stamp, sequence++, ACTIVE_SUFFIX));
+        } while (Files.exists(closed) || Files.exists(archiveOf(closed)));
+
+        Files.move(active, closed, StandardCopyOption.ATOMIC_MOVE);
+        return closed;
+    }
+
+    /**
+     * Compresses a closed segment and writes its index, then deletes it. The index is written before the compressed
+     * segment appears, and the closed segment deleted after, so a crash leaves at worst a segment to archive again.
+     */
+    void archive(Path closed) throws IOException {
+        Path archive = archiveOf(closed);
+        if (Files.exists(archive)) {
+            Files.deleteIfExists(closed);
+            return;
+        }
+
+        Path temporary = archive.resolveSibling(archive.getFileName() + ".tmp");
+        String first = null;
+        String last = null;
+        long sessions = 0;
+        try (BufferedReader reader = Files.newBufferedReader(closed);
+             Writer writer = new OutputStreamWriter(
+                     new GZIPOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE), StandardCharsets.UTF_8)) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (line.isBlank())
+                    continue;
+
+                writer.write(line);
+                writer.write('\n');
+                sessions++;
+
+                String startTime = startTime(line);
+                if (startTime != null) {
+                    if (first == null || startTime.compareTo(first) < 0)
+                        first = startTime;
+                    if (last == null || startTime.compareTo(last) > 0)
+                        last = startTime;
+                }
+            }
+        }
+
+        Map<String, Object> index = new LinkedHashMap<>();
+        index.put("first_start_time", first);
+        index.put("last_start_time", last);
+        index.put("sessions", sessions);
+        Path indexTemporary = temporary.resolveSibling(indexOf(closed).getFileName() + ".tmp");
+        mapper.writeValue(indexTemporary.toFile(), index);
+        Files.move(indexTemporary, indexOf(closed), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.move(temporary, archive, StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(closed);
+    }
+
+    /**
+     * Archives the closed segments left uncompressed, by a crash or a failed archiving.
+     */
+    void archivePending() {
+        for (Segment segment : segments()) {
+            if (!segment.compressed() && !segment.path().equals(active)) {
+                try {
+                    archive(segment.path());
+                } catch (NoSuchFileException e) {
+                    // Archived meanwhile by another process.
+                } catch (IOException e) {
+                    LoggerService.log(Level.ERROR, "Error archiving " + segment.path() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Lists the closed segments, oldest first, then the active one.
+     */
+    public List<Segment> segments() {
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(active.getParent())) {
+            List<Path> closed = files
+                    .filter(file -> {
+                        String fileName = file.getFileName().toString();
+                        return fileName.startsWith(name + "-")
+                                && (fileName.endsWith(ACTIVE_SUFFIX) || fileName.endsWith(ACTIVE_SUFFIX + ARCHIVE_SUFFIX));
+                    })
+                    .sorted()
+                    .toList();
+            Set<Path> archived = Set.copyOf(closed);
+            for (Path file : closed) {
+                if (file.toString().endsWith(ARCHIVE_SUFFIX))
+                    segments.add(readIndex(file));
+                else if (!archived.contains(archiveOf(file)))
+                    segments.add(new Segment(file, false, null, null, -1));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (Files.exists(active))
+            segments.add(new Segment(active, false, null, null, -1));
+        return segments;
+    }
+
+    /**
+     * Streams the sessions started between two times, inclusive, segment by segment, skipping the segments whose index
+     * shows they hold none. The stream must be closed. The sessions of an active segment rotated meanwhile are missed.
+     */
+    public Stream<Map<String, Object>> sessionsBetween(LocalDateTime from, LocalDateTime to) {
+        String low = from.format(SessionLogger.DATE_FORMAT);
+        String high = to.format(SessionLogger.DATE_FORMAT);
+        return segments().stream()
+                .filter(segment -> segment.overlaps(low, high))
+                .flatMap(segment -> lines(segment.path()))
+                .map(this::parse)
+                .filter(session -> session != null && session.get(START_TIME) instanceof String startTime
+                        && startTime.compareTo(low) >= 0 && startTime.compareTo(high) <= 0);
+    }
+
+    private Segment readIndex(Path archive) {
+        Path closed = Path.of(archive.toString().substring(0, archive.toString().length() - ARCHIVE_SUFFIX.length()));
+        try {
+            Map<String, Object> index = mapper.readValue(indexOf(closed).toFile(), new TypeReference<>() {});
+            return new Segment(archive, true, (String) index.get("first_start_time"),
+                    (String) index.get("last_start_time"), ((Number) index.get("sessions")).longValue());
+        } catch (IOException e) {
+            LoggerService.log(Level.WARN, "Missing index for " + archive + ", it will be scanned: " + e.getMessage());
+            return new Segment(archive, true, null, null, -1);
+        }
+    }
+
+    private Stream<String> lines(Path segment) {
+        try {
+            BufferedReader reader = segment.toString().endsWith(ARCHIVE_SUFFIX)
+                    ? new BufferedReader(new InputStreamReader(
+                            new GZIPInputStream(Files.newInputStream(segment), BUFFER_SIZE), StandardCharsets.UTF_8))
+                    : Files.newBufferedReader(segment);
+            return reader.lines().onClose(() -> {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (NoSuchFileException e) {
+            Path archive = archiveOf(segment);
+            return !segment.equals(active) && Files.exists(archive) ? lines(archive) : Stream.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String startTime(String line) {
+        try {
+            return mapper.readTree(line).path(START_TIME).textValue();
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private Map<String, Object> parse(String line) {
+        try {
+            return mapper.readValue(line, new TypeReference<>() {});
+        } catch (JsonProcessingException e) {
+            // A line being appended to the active segment.
+            return null;
+        }
+    }
+
+    private static Path archiveOf(Path closed) {
+        return closed.resolveSibling(closed.getFileName() + ARCHIVE_SUFFIX);
+    }
+
+    private static Path indexOf(Path closed) {
+        return closed.resolveSibling(closed.getFileName() + INDEX_SUFFIX);
+    }
+
+    /**
+     * When the active segment is closed, checked before each write, so an idle log is rotated on its next session.
+     *
+     * @param maxBytes     the size from which the active segment is closed
+     * @param maxAgeMillis the age from which the active segment is closed
+     */
+    public record Rotation(long maxBytes, long maxAgeMillis) {
+        public Rotation {
+            if (maxBytes <= 0 || maxAgeMillis <= 0)
+                throw new IllegalArgumentException("Rotation thresholds must be positive: " + maxBytes + ", " + maxAgeMillis);
+        }
+
+        public static Rotation never() {
+            return new Rotation(Long.MAX_VALUE, Long.MAX_VALUE);
+        }
+
+        boolean isDue(long size, long openedAtMillis, long nowMillis) {
+            return size > 0 && (size >= maxBytes || nowMillis - openedAtMillis >= maxAgeMillis);
+        }
+    }
+
+    /**
+     * @param path           the segment file
+     * @param compressed     whether it is an archived segment
+     * @param firstStartTime the earliest start time of its sessions, null if unknown
+     * @param lastStartTime  the latest start time of its sessions, null if unknown
+     * @param sessions       the number of sessions, -1 if unknown
+     */
+    public record Segment(Path path, boolean compressed, String firstStartTime, String lastStartTime, long sessions) {
+        boolean overlaps(String low, String high) {
+            if (sessions == 0)
+                return false;
+            if (firstStartTime == null || lastStartTime == null)
+                return sessions < 0;
+            return firstStartTime.compareTo(high) <= 0 && lastStartTime.compareTo(low) >= 0;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.logging.log4j.Level;
+import utils.LoggerService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Background writer appending records to a JSON Lines file, so that callers never wait for the disk.
+ * <p>
+ * Records are queued in a bounded queue and serialized by a single daemon thread, which drains up to
+ * {@link #MAX_BATCH} of them at a time and appends them in one write under an exclusive lock of the file. When the
+ * queue is full, records are rejected rather than making the caller wait, and counted in the {@link Stats} apart
+ * from the records rejected because the writer is closed or stopped on an error. The file is
+ * forced to disk according to the {@link SyncPolicy}, and always when the writer is closed, which a shutdown hook
+ * does when the JVM exits.
+ * <p>
+ * The file is the active segment of a {@link SessionLogStore}: when its {@link SessionLogStore.Rotation} is due, the
+ * writer renames it under the lock and starts a new one, then archives the closed segment. Writers of other processes
+ * notice the rename when they next lock the file, and reopen it.
+ */
+public final class SessionLogWriter implements AutoCloseable {
+    public static final int MAX_BATCH = 256;
+    private static final long IDLE_POLL_MILLIS = 1_000;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5_000;
+    /** Wakes the writer thread up when closing. */
+    private static final Object STOP = new Object();
+
+    private final SessionLogStore store;
+    private final Path path;
+    private final ObjectMapper mapper;
+    private final SyncPolicy syncPolicy;
+    private final BlockingQueue<Object> queue;
+    private final Thread thread;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedFull = new LongAdder();
+    private final LongAdder rejectedClosed = new LongAdder();
+    private final AtomicInteger maxQueued = new AtomicInteger();
+    private volatile long written;
+    private volatile long failed;
+    private volatile long batches;
+    private volatile long syncs;
+    private volatile long rotations;
+
+    private FileChannel channel;
+    private Object fileKey;
+    private long openedAtMillis;
+
+    /**
+     * Starts the writer thread.
+     *
+     * @param store      the segments to append to, the active one created if missing
+     * @param mapper     the mapper serializing the records
+     * @param capacity   the maximum number of queued records
+     * @param syncPolicy when to force the file to disk
+     */
+    public SessionLogWriter(SessionLogStore store, ObjectMapper mapper, int capacity, SyncPolicy syncPolicy) {
+        this.store = store;
+        this.path = store.activeSegment();
+        this.mapper = mapper;
+        this.syncPolicy = syncPolicy;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        this.thread = new Thread(this::run, "session-log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        this.shutdownHook = new Thread(this::close, "session-log-flush");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Queues a record without blocking.
+     *
+     * @param record the record, serialized as one line
+     * @return false if the record was rejected because the queue is full or the writer is closed, which
+     * {@link #isClosed()} tells apart
+     */
+    public boolean append(Object record) {
+        if (closed) {
+            rejectedClosed.increment();
+            return false;
+        }
+        if (!queue.offer(record)) {
+            rejectedFull.increment();
+            return false;
+        }
+
+        accepted.increment();
+        maxQueued.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    /**
+     * Waits until every record queued so far is written and forced to disk.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws InterruptedException {
+        Flush flush = new Flush(new CountDownLatch(1));
+        if (closed)
+            return;
+
+        queue.put(flush);
+        flush.done().await();
+    }
+
+    /**
+     * Stops accepting records, then waits for the queued ones to be written and forced to disk.
+     */
+    @Override
+    public void close() {
+        if (closed)
+            return;
+
+        closed = true;
+        queue.offer(STOP);
+        try {
+            thread.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // Already shutting down, from the hook itself.
+        }
+    }
+
+    /**
+     * @return true once the writer is closed, or stopped because the file could not be opened
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public Stats stats() {
+        return new Stats(accepted.sum(), rejectedFull.sum(), rejectedClosed.sum(), written, failed, batches, syncs,
+                rotations, queue.size(), maxQueued.get());
+    }
+
+    private void run() {
+        List<Object> batch = new ArrayList<>(MAX_BATCH);
+        List<Flush> flushes = new ArrayList<>();
+        boolean unsynced = false;
+        long lastSync = System.nanoTime();
+        store.archivePending();
+        try {
+            open();
+            while (!closed || !queue.isEmpty()) {
+                Object first = queue.poll(pollMillis(), TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    unsynced |= write(batch, flushes);
+                    batch.clear();
+                }
+
+                long now = System.nanoTime();
+                boolean due = switch (syncPolicy.mode()) {
+                    case EVERY_RECORD -> true;
+                    case INTERVAL -> now - lastSync >= TimeUnit.MILLISECONDS.toNanos(syncPolicy.intervalMillis());
+                    case ON_SHUTDOWN -> false;
+                };
+                if (unsynced && (due || !flushes.isEmpty())) {
+                    sync();
+                    unsynced = false;
+                    lastSync = now;
+                }
+                flushes.forEach(flush -> flush.done().countDown());
+                flushes.clear();
+            }
+
+            if (unsynced)
+                sync();
+        } catch (IOException e) {
+            LoggerService.log(Level.ERROR, "Session log writer stopped, cannot open " + path + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            LoggerService.log(Level.ERROR, "Session log writer interrupted, " + queue.size() + " records lost");
+        } finally {
+            closed = true;
+            closeChannel();
+            for (Object record : queue) {
+                if (record instanceof Flush flush)
+                    flush.done().countDown();
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        openedAtMillis = store.activeSegmentOpenedAt(channel.size() == 0);
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            LoggerService.log(Level.ERROR, "Error closing " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Locks the active segment, first reopening it if another process rotated it, and rotating it if due.
+     *
+     * @param rotated collects the segments closed by this writer, to archive once the lock is released
+     */
+    private FileLock lockActiveSegment(List<Path> rotated) throws IOException {
+        if (!channel.isOpen())
+            open();
+        while (true) {
+            FileLock lock = channel.lock();
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                attributes = null;
+            }
+
+            if (attributes == null || fileKey != null && !fileKey.equals(attributes.fileKey())) {
+                channel.close();
+                open();
+            } else if (store.rotation().isDue(channel.size(), openedAtMillis, System.currentTimeMillis())) {
+                channel.force(false);
+                rotated.add(store.closeActiveSegment());
+                rotations++;
+                channel.close();
+                open();
+            } else {
+                return lock;
+            }
+        }
+    }
+
+    private long pollMillis() {
+        return syncPolicy.mode() == SyncPolicy.Mode.INTERVAL
+                ? Math.min(IDLE_POLL_MILLIS, syncPolicy.intervalMillis()) : IDLE_POLL_MILLIS;
+    }
+
+    /**
+     * Appends a batch in a single write, collecting the flush requests found in it.
+     *
+     * @return whether anything was written
+     */
+    private boolean write(List<Object> batch, List<Flush> flushes) {
+        ByteArrayOutputStream lines = new ByteArrayOutputStream();
+        int records = 0;
+        for (Object record : batch) {
+            if (record instanceof Flush flush) {
+                flushes.add(flush);
+            } else if (record != STOP) {
+                try {
+                    lines.write(mapper.writeValueAsBytes(record));
+                    lines.write('\n');
+                    records++;
+                } catch (IOException e) {
+                    failed++;
+                    LoggerService.log(Level.ERROR, "Session record not serializable: " + e.getMessage());
+                }
+            }
+        }
+        if (records == 0)
+            return false;
+
+        List<Path> rotated = new ArrayList<>(1);
+        try (FileLock _ = lockActiveSegment(rotated)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toByteArray());
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            written += records;
+            batches++;
+            return true;
+        } catch (IOException e) {
+            failed += records;
+            LoggerService.log(Level.ERROR, "Error writing to " + path + ", " + records + " records lost: " + e.getMessage());
+            return false;
+        } finally {
+            for (Path segment : rotated) {
+                try {
+                    store.archive(segment);
+                } catch (IOException e) {
+                    LoggerService.log(Level.ERROR, "Error archiving " + segment + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void sync() {
+        try {
+            channel.force(false);
+            syncs++;
+        } catch (IOException e) {
+            LoggerService.log(Level.ERROR, "Error syncing " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * When the writer forces the file to disk.
+     *
+     * @param mode           the kind of policy
+     * @param intervalMillis the maximum time records stay unsynced, for {@link Mode#INTERVAL}
+     */
+    public record SyncPolicy(Mode mode, long intervalMillis) {
+        public enum Mode {
+            /** After every write, before taking the next records: no written record is left unsynced. */
+            EVERY_RECORD,
+            /** At most every {@code intervalMillis}, bounding what a crash of the machine can lose. */
+            INTERVAL,
+            /** Only when the writer is closed or flushed, leaving it to the operating system otherwise. */
+            ON_SHUTDOWN
+        }
+
+        public SyncPolicy {
+            if (mode == Mode.INTERVAL && intervalMillis <= 0)
+                throw new IllegalArgumentException("Sync interval must be positive: " + intervalMillis);
+        }
+
+        public static SyncPolicy everyRecord() {
+            return new SyncPolicy(Mode.EVERY_RECORD, 0);
+        }
+
+        public static SyncPolicy every(long intervalMillis) {
+            return new SyncPolicy(Mode.INTERVAL, intervalMillis);
+        }
+
+        public static SyncPolicy onShutdown() {
+            return new SyncPolicy(Mode.ON_SHUTDOWN, 0);
+        }
+    }
+
+    /**
+     * @param accepted       the records queued
+     * @param rejectedFull   the records turned away because the queue was full
+     * @param rejectedClosed the records turned away because the writer was closed or stopped
+     * @param written        the records appended to the file
+     * @param failed         the records that could not be serialized or written
+     * @param batches        the writes, each appending one or more records
+     * @param syncs          the times the file was forced to disk
+     * @param rotations      the segments closed
+     * @param queued         the records currently waiting
+     * @param maxQueued      the most records ever waiting at once
+     */
+    public record Stats(long accepted, long rejectedFull, long rejectedClosed, long written, long failed, long batches,
+                        long syncs, long rotations, int queued, int maxQueued) {
+        public long rejected() {
+            return rejectedFull + rejectedClosed;
+        }
+    }
+
+    private record Flush(CountDownLatch done) {
+    }
+}
@@ -6,25 +6,70 @@ import com.fasterxml.jackson.databind.ObjectWriter;
 import org.apache.logging.log4j.Level;
 import utils.LoggerService;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 public class SessionLogger {
 
     private static final String LOG_FILE_PATH = "session_log.json";
-    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    private final ObjectMapper mapper;
+    private static final Path JSON_LINES_PATH = Path.of("session_log.jsonl");
+    private static final Path MIGRATED_PATH = Path.of(LOG_FILE_PATH + ".migrated");
+    static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int QUEUE_CAPACITY = 4_096;
+    private static final SessionLogWriter.SyncPolicy SYNC_POLICY = SessionLogWriter.SyncPolicy.every(1_000);
+    private static final SessionLogStore STORE = new SessionLogStore(JSON_LINES_PATH,
+            new SessionLogStore.Rotation(16L * 1024 * 1024, Duration.ofDays(1).toMillis()), MAPPER);
+    private static boolean migrated;
+    private static SessionLogWriter writer;
+
+    private final Format format;
     private final Map<String, Object> currentSession;
 
+    /**
+     * How sessions are stored.
+     */
+    public enum Format {
+        /** One pretty-printed JSON array in {@code session_log.json}, rewritten whole on every session. */
+        JSON_ARRAY,
+        /**
+         * One compact JSON object per line in {@code session_log.jsonl}, appended in the background by a
+         * {@link SessionLogWriter} and forced to disk at least every second. It is rotated daily or at 16 MiB into
+         * compressed, indexed segments, see {@link SessionLogStore}. The sessions of an existing
+         * {@code session_log.json} are moved to it the first time it is written to.
+         */
+        JSON_LINES
+    }
+
     public SessionLogger() {
-        this.mapper = new ObjectMapper();
-        this.currentSession = new HashMap<>();
+        this(Format.JSON_LINES);
+    }
+
+    public SessionLogger(Format format) {
+        this.format = format;
+        this.currentSession = new LinkedHashMap<>();
         logProgramStart();
     }
 
@@ -40,7 +85,10 @@ public class SessionLogger {
         routeDetails.put("cheapest_price", cheapestPrice);
 
         currentSession.put("route_details", routeDetails);
-        appendSessionToLogFile();
+        if (format == Format.JSON_LINES)
+            appendSessionToJsonLines();
+        else
+            appendSessionToLogFile();
     }
 
     private void appendSessionToLogFile() {
@@ -50,7 +98,7 @@ public class SessionLogger {
 
         if (file.exists()) {
             try {
-                sessions = mapper.readValue(file, new TypeReference<List<Map<String, Object>>>() {});
+                sessions = MAPPER.readValue(file, new TypeReference<List<Map<String, Object>>>() {});
             } catch (IOException e) {
                 LoggerService.consoleLog(Level.ERROR, "Error reading log file: " + e.getMessage());
                 sessions = new ArrayList<>();
@@ -60,10 +108,121 @@ public class SessionLogger {
         sessions.add(currentSession);
 
         try {
-            ObjectWriter writer = mapper.writerWithDefaultPrettyPrinter();
+            ObjectWriter writer = MAPPER.writerWithDefaultPrettyPrinter();
             writer.writeValue(file, sessions);
         } catch (IOException e) {
             LoggerService.consoleLog(Level.ERROR, "Error writing to log file: " + e.getMessage());
         }
     }
+
+    /**
+     * Queues the session for the background writer, so the caller does not wait for the disk.
+     */
+    private void appendSessionToJsonLines() {
+        try {
+            SessionLogWriter writer = writer();
+            if (!writer.append(new LinkedHashMap<>(currentSession)))
+                LoggerService.log(Level.WARN, writer.isClosed()
+                        ? "Session log writer stopped, session dropped" : "Session log queue full, session dropped");
+        } catch (IOException e) {
+            LoggerService.consoleLog(Level.ERROR, "Error writing to log file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the writer appending to the JSON Lines file, started on first use once the JSON array file is migrated.
+     */
+    private static synchronized SessionLogWriter writer() throws IOException {
+        if (writer == null) {
+            migrateLogFile();
+            writer = new SessionLogWriter(STORE, MAPPER, QUEUE_CAPACITY, SYNC_POLICY);
+        }
+        return writer;
+    }
+
+    /**
+     * Waits until every session logged so far is written to the JSON Lines file and forced to disk.
+     */
+    public static void flush() throws IOException, InterruptedException {
+        writer().flush();
+    }
+
+    /**
+     * Streams the sessions started between two times, inclusive, from the JSON Lines segments. The stream must be
+     * closed.
+     */
+    public static Stream<Map<String, Object>> sessionsBetween(LocalDateTime from, LocalDateTime to) {
+        return STORE.sessionsBetween(from, to);
+    }
+
+    /**
+     * Returns the queue and write metrics of the JSON Lines writer.
+     */
+    public static SessionLogWriter.Stats writerStats() throws IOException {
+        return writer().stats();
+    }
+
+    /**
+     * Moves the sessions of the JSON array file, which are older, in front of those of the JSON Lines file, then
+     * renames the array file so it is migrated only once.
+     * <p>
+     * The migration holds the lock of the JSON Lines file that the writers of every process take before appending
+     * or rotating, so no session is appended meanwhile, and a process migrating after another one finds nothing left
+     * to migrate. Like the writers, it locks the file again if it was renamed before the lock was acquired.
+     */
+    private static void migrateLogFile() throws IOException {
+        Path legacy = Path.of(LOG_FILE_PATH);
+        while (!migrated && Files.exists(legacy)) {
+            try (FileChannel channel = FileChannel.open(JSON_LINES_PATH, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                BasicFileAttributes opened = attributes(JSON_LINES_PATH);
+                try (FileLock _ = channel.lock()) {
+                    BasicFileAttributes locked = attributes(JSON_LINES_PATH);
+                    if (opened == null || locked == null
+                            || opened.fileKey() != null && !opened.fileKey().equals(locked.fileKey()))
+                        continue; // Renamed by another process since it was opened, lock the new file.
+
+                    if (Files.exists(legacy))
+                        migrateLogFile(legacy, channel);
+                    migrated = true;
+                }
+            }
+        }
+        migrated = true;
+    }
+
+    private static void migrateLogFile(Path legacy, FileChannel jsonLines) throws IOException {
+        List<Map<String, Object>> sessions = MAPPER.readValue(legacy.toFile(), new TypeReference<>() {});
+        Path temporary = JSON_LINES_PATH.resolveSibling(
+                JSON_LINES_PATH.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+                for (Map<String, Object> session : sessions) {
+                    writer.write(MAPPER.writeValueAsString(session));
+                    writer.write('\n');
+                }
+                writer.flush();
+                // Not closed, as closing the stream would close the locked channel.
+                Channels.newInputStream(jsonLines.position(0)).transferTo(output);
+            }
+            Files.move(temporary, JSON_LINES_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+
+        Files.move(legacy, MIGRATED_PATH, StandardCopyOption.REPLACE_EXISTING);
+        LoggerService.log(Level.INFO, sessions.size() + " sessions migrated from " + legacy + " to " + JSON_LINES_PATH);
+    }
+
+    /**
+     * @return the attributes of the file, or null if it does not exist
+     */
+    private static BasicFileAttributes attributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
 }
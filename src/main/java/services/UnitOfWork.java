@@ -0,0 +1,75 @@
+package services;
+
+import entities.Entity;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One session, and so one connection and one transaction, shared by the DAOs of a unit of work.
+ * <p>
+ * Writes through its DAOs are committed together by {@link #commit()}, which then notifies the change listeners of
+ * {@link MyBatis}. Closing the unit of work rolls back what was not committed.
+ * <pre>{@code
+ * try (UnitOfWork unit = UnitOfWork.begin()) {
+ *     MyBatis<Trip> tripDao = unit.dao(Trip.class);
+ *     trips.forEach(tripDao::create);
+ *     unit.commit();
+ * }
+ * }</pre>
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private final SqlSession session;
+    private final List<EntityChange> pendingChanges = new ArrayList<>();
+
+    private UnitOfWork(SqlSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Opens a session on the shared factory.
+     *
+     * @throws IOException if the configuration cannot be read
+     */
+    public static UnitOfWork begin() throws IOException {
+        return new UnitOfWork(SessionFactories.get().openSession(ExecutorType.SIMPLE));
+    }
+
+    /**
+     * Returns a DAO working in this unit of work, which must not be closed separately.
+     */
+    public <T extends Entity> MyBatis<T> dao(Class<T> clazz) {
+        return new MyBatis<>(clazz, this);
+    }
+
+    SqlSession session() {
+        return session;
+    }
+
+    void changed(EntityChange change) {
+        if (change.rows() > 0)
+            pendingChanges.add(change);
+    }
+
+    /**
+     * Commits the writes of every DAO of this unit of work, then notifies the change listeners.
+     */
+    public void commit() {
+        session.commit();
+        for (EntityChange change : pendingChanges)
+            MyBatis.notifyChange(change);
+        pendingChanges.clear();
+    }
+
+    /**
+     * Rolls back the uncommitted writes, then releases the connection.
+     */
+    @Override
+    public void close() {
+        pendingChanges.clear();
+        session.close();
+    }
+}
@@ -6,7 +6,9 @@ ALTER TABLE airlines AUTO_INCREMENT = 201;
 
 CREATE TABLE airports (
     id INT PRIMARY KEY AUTO_INCREMENT,
-    name VARCHAR(255) NOT NULL UNIQUE
+    name VARCHAR(255) NOT NULL UNIQUE,
+    latitude DECIMAL(9, 6) NULL CHECK (latitude BETWEEN -90 AND 90),
+    longitude DECIMAL(9, 6) NULL CHECK (longitude BETWEEN -180 AND 180)
 );
 ALTER TABLE airports AUTO_INCREMENT = 101;
 
@@ -24,6 +26,22 @@ CREATE TABLE routes (
 );
 ALTER TABLE routes AUTO_INCREMENT = 1001;
 
+-- Version of the airports and routes, bumped by every write to them, so that a saved route graph can tell whether
+-- it is outdated without reading the tables. It starts from the creation time in microseconds, so that a recreated
+-- database does not count again through the versions of the previous one.
+CREATE TABLE data_version (
+    id TINYINT PRIMARY KEY CHECK (id = 1),
+    version BIGINT NOT NULL
+);
+INSERT INTO data_version (id, version) VALUES (1, FLOOR(UNIX_TIMESTAMP(NOW(6)) * 1000000));
+
+CREATE TRIGGER airports_insert_version AFTER INSERT ON airports FOR EACH ROW UPDATE data_version SET version = version + 1;
+CREATE TRIGGER airports_update_version AFTER UPDATE ON airports FOR EACH ROW UPDATE data_version SET version = version + 1;
+CREATE TRIGGER airports_delete_version AFTER DELETE ON airports FOR EACH ROW UPDATE data_version SET version = version + 1;
+CREATE TRIGGER routes_insert_version AFTER INSERT ON routes FOR EACH ROW UPDATE data_version SET version = version + 1;
+CREATE TRIGGER routes_update_version AFTER UPDATE ON routes FOR EACH ROW UPDATE data_version SET version = version + 1;
+CREATE TRIGGER routes_delete_version AFTER DELETE ON routes FOR EACH ROW UPDATE data_version SET version = version + 1;
+
 CREATE TABLE passengers (
     id INT PRIMARY KEY AUTO_INCREMENT,
     full_name VARCHAR(255) NOT NULL -- separar
@@ -50,12 +68,12 @@ INSERT INTO airlines (name) VALUES
 ('Copa Airlines'),
 ('Fly Bondi');
 
-INSERT INTO airports (name) VALUES
-('JFK International Airport'),
-('Los Angeles International Airport'),
-('Ezeiza Airport'),
-('Tokyo Airport'),
-('Cancun Airport');
+INSERT INTO airports (name, latitude, longitude) VALUES
+('JFK International Airport', 40.641311, -73.778139),
+('Los Angeles International Airport', 33.941589, -118.408530),
+('Ezeiza Airport', -34.815004, -58.534828),
+('Tokyo Airport', 35.549393, 139.779839),
+('Cancun Airport', 21.036528, -86.877083);
 
 INSERT INTO routes (id_from, id_to, airline_id, km, price) VALUES
 (105, 103, 202, 2800, 320.00),
@@ -0,0 +1,140 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that {@link AllPairs#update(RouteGraph)} matches a full recomputation after routes get more expensive,
+ * cheaper, deleted or added.
+ */
+class AllPairsTest {
+    private static final double EPSILON = 1e-6;
+
+    enum Change {
+        INCREASE, DECREASE, DELETE, INSERT, MIXED
+    }
+
+    static LongStream seeds() {
+        return LongStream.range(0, 40);
+    }
+
+    @ParameterizedTest
+    @MethodSource("seeds")
+    void updateMatchesRecomputation(long seed) {
+        Random random = new Random(seed);
+        List<Airport> airports = airports(3 + random.nextInt(25));
+        List<Route> routes = routes(airports, random);
+        for (Change change : Change.values()) {
+            RouteGraph graph = RouteGraph.build(airports, routes);
+            List<Route> changed = change(routes, airports, change, random);
+            RouteGraph newGraph = RouteGraph.build(airports, changed);
+            for (RouteMetric metric : RouteMetric.values()) {
+                AllPairs updated = FloydWarshall.apply(graph, metric).update(newGraph);
+                assertNotNull(updated);
+                assertSame(newGraph, updated.graph());
+                assertMatches(FloydWarshall.apply(newGraph, metric), updated, metric, change + " " + metric + " seed " + seed);
+            }
+        }
+    }
+
+    @Test
+    void successiveUpdatesMatchRecomputation() {
+        Random random = new Random(7);
+        List<Airport> airports = airports(30);
+        List<Route> routes = routes(airports, random);
+        AllPairs result = FloydWarshall.apply(RouteGraph.build(airports, routes), RouteMetric.PRICE);
+        for (int step = 0; step < 50; step++) {
+            routes = change(routes, airports, Change.MIXED, random);
+            RouteGraph graph = RouteGraph.build(airports, routes);
+            result = result.update(graph);
+            assertMatches(FloydWarshall.apply(graph, RouteMetric.PRICE), result, RouteMetric.PRICE, "step " + step);
+        }
+    }
+
+    @Test
+    void updateRejectsOtherAirports() {
+        Random random = new Random(1);
+        List<Airport> airports = airports(10);
+        List<Route> routes = routes(airports, random);
+        AllPairs result = FloydWarshall.apply(RouteGraph.build(airports, routes), RouteMetric.KM);
+
+        assertNull(result.update(RouteGraph.build(airports.subList(0, 9), List.of())));
+        assertNull(result.update(RouteGraph.build(airports.reversed(), routes)));
+    }
+
+    private static void assertMatches(AllPairs expected, AllPairs actual, RouteMetric metric, String message) {
+        final int V = expected.graph().airportCount();
+        for (int i = 0; i < V; i++) {
+            for (int j = 0; j < V; j++) {
+                String pair = message + ", " + i + " -> " + j;
+                assertEquals(expected.distance(i, j), actual.distance(i, j), EPSILON, pair);
+
+                List<Route> path = actual.routes(i, j);
+                if (i != j && expected.distance(i, j) != Double.POSITIVE_INFINITY) {
+                    double cost = path.stream().mapToDouble(metric).sum();
+                    assertEquals(expected.distance(i, j), cost, EPSILON, pair);
+                } else if (i != j) {
+                    assertTrue(path.isEmpty(), pair);
+                }
+            }
+        }
+    }
+
+    private static List<Airport> airports(int count) {
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            airports.add(new Airport(1 + i, "Airport " + i));
+        return airports;
+    }
+
+    private static List<Route> routes(List<Airport> airports, Random random) {
+        List<Route> routes = new ArrayList<>();
+        int count = airports.size() * 3;
+        for (int r = 0; r < count; r++)
+            routes.add(randomRoute(airports, random, r + 1));
+        return routes;
+    }
+
+    private static Route randomRoute(List<Airport> airports, Random random, int id) {
+        int from = random.nextInt(airports.size());
+        int to = (from + 1 + random.nextInt(airports.size() - 1)) % airports.size();
+        return new Route(id, airports.get(from).getId(), airports.get(to).getId(), 1,
+                100 + random.nextInt(5000), 20 + random.nextInt(1000));
+    }
+
+    /**
+     * Applies the change to a few random routes, keeping the route IDs of the others.
+     */
+    private static List<Route> change(List<Route> routes, List<Airport> airports, Change change, Random random) {
+        List<Route> changed = new ArrayList<>(routes);
+        int nextId = routes.stream().mapToInt(Route::getId).max().orElse(0) + 1;
+        int count = 1 + random.nextInt(Math.max(1, routes.size() / 5));
+        for (int c = 0; c < count && !changed.isEmpty(); c++) {
+            Change kind = change == Change.MIXED ? Change.values()[random.nextInt(Change.MIXED.ordinal())] : change;
+            int index = random.nextInt(changed.size());
+            Route route = changed.get(index);
+            switch (kind) {
+                case INCREASE -> changed.set(index, new Route(route.getId(), route.getIdFrom(), route.getIdTo(),
+                        route.getAirlineId(), route.getKm() + 1 + random.nextInt(3000),
+                        route.getPrice() + 1 + random.nextInt(500)));
+                case DECREASE -> changed.set(index, new Route(route.getId(), route.getIdFrom(), route.getIdTo(),
+                        route.getAirlineId(), 1 + random.nextInt(route.getKm()), 1 + random.nextInt((int) route.getPrice())));
+                case DELETE -> changed.remove(index);
+                case INSERT -> changed.add(randomRoute(airports, random, nextId++));
+                case MIXED -> throw new IllegalStateException();
+            }
+        }
+
+        return changed;
+    }
+}
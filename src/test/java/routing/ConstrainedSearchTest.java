@@ -0,0 +1,167 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the constrained search against the cheapest feasible itinerary among every loopless one of small random
+ * networks, under random combinations of stop, airline and budget limits.
+ */
+class ConstrainedSearchTest {
+    private static final double EPSILON = 1e-6;
+    private static final int AIRLINES = 4;
+
+    static LongStream seeds() {
+        return LongStream.range(0, 150);
+    }
+
+    @ParameterizedTest
+    @MethodSource("seeds")
+    void findsTheCheapestFeasibleItinerary(long seed) {
+        Random random = new Random(seed);
+        RouteGraph graph = randomGraph(random);
+        for (int c = 0; c < 8; c++) {
+            RouteConstraints constraints = randomConstraints(random);
+            for (RouteMetric metric : RouteMetric.values()) {
+                double[] weights = graph.weights(metric);
+                for (int source = 0; source < graph.airportCount(); source++) {
+                    for (int target = 0; target < graph.airportCount(); target++) {
+                        if (source == target)
+                            continue;
+
+                        double expected = SimplePaths.between(graph, source, target).stream()
+                                .filter(path -> satisfies(graph, path, constraints))
+                                .mapToDouble(path -> SimplePaths.cost(path, weights))
+                                .min().orElse(Double.POSITIVE_INFINITY);
+                        int[] path = ConstrainedSearch.findPath(graph, metric, source, target, constraints);
+                        String message = metric + " " + constraints + " seed " + seed + ", " + source + " -> " + target;
+
+                        if (expected == Double.POSITIVE_INFINITY) {
+                            assertEquals(0, path.length, message);
+                            continue;
+                        }
+                        assertTrue(path.length > 0, message);
+                        assertEquals(source, graph.source(path[0]), message);
+                        assertEquals(target, graph.target(path[path.length - 1]), message);
+                        for (int i = 1; i < path.length; i++)
+                            assertEquals(graph.target(path[i - 1]), graph.source(path[i]), message);
+                        assertTrue(satisfies(graph, path, constraints), message);
+                        assertEquals(expected, SimplePaths.cost(path, weights), EPSILON, message);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The direct route is the cheapest but its airline is denied, even when also allowed, and the two-leg itinerary
+     * exceeds the budget, so only the three-leg one remains, and only when three legs are allowed.
+     */
+    @Test
+    void combinesEveryLimit() {
+        List<Airport> airports = List.of(new Airport(1, "A"), new Airport(2, "B"), new Airport(3, "C"),
+                new Airport(4, "D"), new Airport(5, "E"));
+        List<Route> routes = List.of(
+                new Route(1, 1, 5, 9, 100, 100),
+                new Route(2, 1, 2, 1, 100, 400),
+                new Route(3, 2, 5, 1, 100, 400),
+                new Route(4, 1, 3, 2, 200, 100),
+                new Route(5, 3, 4, 2, 200, 100),
+                new Route(6, 4, 5, 1, 200, 100));
+        RouteGraph graph = RouteGraph.build(airports, routes);
+        RouteConstraints constraints = RouteConstraints.none().withDeniedAirlines(List.of(9))
+                .withBudget(RouteMetric.PRICE, 500);
+
+        assertEquals(List.of(4, 5, 6), routeIds(graph, ConstrainedSearch.findPath(graph, RouteMetric.KM, 0, 4, constraints)));
+        assertEquals(List.of(), routeIds(graph, ConstrainedSearch.findPath(graph, RouteMetric.KM, 0, 4, constraints.withMaxStops(1))));
+        assertEquals(List.of(2, 3), routeIds(graph, ConstrainedSearch.findPath(graph, RouteMetric.KM, 0, 4,
+                constraints.withBudget(RouteMetric.PRICE, 800))));
+        assertEquals(List.of(4, 5, 6), routeIds(graph, ConstrainedSearch.findPath(graph, RouteMetric.KM, 0, 4,
+                constraints.withAllowedAirlines(List.of(2, 1, 9)))));
+        assertEquals(List.of(), routeIds(graph, ConstrainedSearch.findPath(graph, RouteMetric.KM, 0, 4,
+                constraints.withAllowedAirlines(List.of(2, 9)))));
+    }
+
+    @Test
+    void rejectsNegativeLimits() {
+        assertThrows(IllegalArgumentException.class, () -> RouteConstraints.none().withMaxStops(-1));
+        assertThrows(IllegalArgumentException.class, () -> RouteConstraints.none().withBudget(RouteMetric.PRICE, -1));
+    }
+
+    private static boolean satisfies(RouteGraph graph, int[] path, RouteConstraints constraints) {
+        if (path.length - 1 > constraints.maxStops())
+            return false;
+
+        double spent = 0;
+        for (int edge : path) {
+            if (!constraints.allowsAirline(graph.airlineId(edge)))
+                return false;
+            if (constraints.hasBudget())
+                spent += constraints.budgetMetric().applyAsDouble(graph.route(edge));
+        }
+
+        return spent <= constraints.budget() + EPSILON;
+    }
+
+    private static RouteConstraints randomConstraints(Random random) {
+        RouteConstraints constraints = RouteConstraints.none();
+        if (random.nextBoolean())
+            constraints = constraints.withMaxStops(random.nextInt(4));
+        if (random.nextInt(3) == 0)
+            constraints = constraints.withAllowedAirlines(randomAirlines(random));
+        if (random.nextInt(3) == 0)
+            constraints = constraints.withDeniedAirlines(randomAirlines(random));
+        if (random.nextBoolean()) {
+            RouteMetric metric = random.nextBoolean() ? RouteMetric.KM : RouteMetric.PRICE;
+            constraints = constraints.withBudget(metric, metric == RouteMetric.KM ? 200 + random.nextInt(1500) : 20 + random.nextInt(150));
+        }
+
+        return constraints;
+    }
+
+    private static List<Integer> randomAirlines(Random random) {
+        List<Integer> airlines = new ArrayList<>();
+        for (int airline = 1; airline <= AIRLINES; airline++) {
+            if (random.nextBoolean())
+                airlines.add(airline);
+        }
+        return airlines;
+    }
+
+    /**
+     * Few airports and parallel routes of several airlines, so that cheaper itineraries often break a limit that a
+     * costlier one respects.
+     */
+    private static RouteGraph randomGraph(Random random) {
+        int airportCount = 2 + random.nextInt(6);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < airportCount; i++)
+            airports.add(new Airport(1 + i, "Airport " + i));
+
+        List<Route> routes = new ArrayList<>();
+        int routeCount = random.nextInt(airportCount * 4);
+        for (int r = 0; r < routeCount; r++) {
+            int from = random.nextInt(airportCount);
+            int to = random.nextInt(airportCount);
+            if (from != to)
+                routes.add(new Route(r + 1, from + 1, to + 1, 1 + random.nextInt(AIRLINES),
+                        100 * (1 + random.nextInt(5)), 10 * (1 + random.nextInt(5))));
+        }
+
+        return RouteGraph.build(airports, routes);
+    }
+
+    private static List<Integer> routeIds(RouteGraph graph, int[] path) {
+        return graph.routes(path).stream().map(Route::getId).toList();
+    }
+}
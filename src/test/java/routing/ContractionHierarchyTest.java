@@ -0,0 +1,78 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the contraction hierarchy of a dense hub-and-spoke network, whose contraction stops at an uncontracted
+ * core, against Dijkstra's algorithm.
+ */
+class ContractionHierarchyTest {
+    private static final double EPSILON = 1e-6;
+
+    @Test
+    void queriesThroughTheCoreFindTheCheapestItinerary() {
+        Random random = new Random(17);
+        RouteGraph graph = hubAndSpoke(random, 400, 12);
+        for (RouteMetric metric : RouteMetric.values()) {
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, metric);
+            assertTrue(hierarchy.coreSize() > 0, "the hubs form a core");
+
+            for (int p = 0; p < 300; p++) {
+                int source = random.nextInt(graph.airportCount());
+                int target = random.nextInt(graph.airportCount());
+                if (source == target)
+                    continue;
+
+                String message = metric + ", " + source + " -> " + target;
+                int[] expected = Dijkstra.findPath(graph, metric, source, target);
+                List<Route> routes = hierarchy.routes(source, target);
+                assertEquals(expected.length == 0, routes.isEmpty(), message);
+                assertEquals(cost(graph.routes(expected), metric), cost(routes, metric), EPSILON, message);
+                for (int i = 1; i < routes.size(); i++)
+                    assertEquals(routes.get(i - 1).getIdTo(), routes.get(i).getIdFrom(), message);
+            }
+        }
+    }
+
+    /**
+     * Every airport flies to a few hubs, and every hub to every other hub.
+     */
+    private static RouteGraph hubAndSpoke(Random random, int airportCount, int hubs) {
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < airportCount; i++)
+            airports.add(new Airport(1 + i, "Airport " + i));
+
+        List<Route> routes = new ArrayList<>();
+        for (int hub = 0; hub < hubs; hub++) {
+            for (int other = 0; other < hubs; other++) {
+                if (other != hub)
+                    routes.add(route(routes, random, hub, other));
+            }
+        }
+        for (int airport = hubs; airport < airportCount; airport++) {
+            for (int h = 0; h < 3; h++) {
+                int hub = random.nextInt(hubs);
+                routes.add(route(routes, random, airport, hub));
+                routes.add(route(routes, random, hub, airport));
+            }
+        }
+
+        return RouteGraph.build(airports, routes);
+    }
+
+    private static Route route(List<Route> routes, Random random, int from, int to) {
+        return new Route(routes.size() + 1, from + 1, to + 1, 1, 100 + random.nextInt(3000), 20 + random.nextInt(500));
+    }
+
+    private static double cost(List<Route> routes, RouteMetric metric) {
+        return routes.stream().mapToDouble(metric).sum();
+    }
+}
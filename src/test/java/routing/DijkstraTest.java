@@ -0,0 +1,92 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks Dijkstra's algorithm against Bellman-Ford on random networks.
+ */
+class DijkstraTest {
+    private static final double EPSILON = 1e-6;
+
+    static LongStream seeds() {
+        return LongStream.range(0, 40);
+    }
+
+    @ParameterizedTest
+    @MethodSource("seeds")
+    void findsTheCheapestPath(long seed) {
+        Random random = new Random(seed);
+        RouteGraph graph = randomGraph(random);
+        for (RouteMetric metric : RouteMetric.values()) {
+            double[] weights = graph.weights(metric);
+            for (int source = 0; source < graph.airportCount(); source++) {
+                double[] expected = bellmanFord(graph, weights, source);
+                for (int target = 0; target < graph.airportCount(); target++) {
+                    if (target == source)
+                        continue;
+
+                    int[] path = Dijkstra.findPath(graph, metric, source, target);
+                    String message = metric + " seed " + seed + ", " + source + " -> " + target;
+                    if (expected[target] == Double.POSITIVE_INFINITY) {
+                        assertEquals(0, path.length, message);
+                        continue;
+                    }
+
+                    assertEquals(source, graph.source(path[0]), message);
+                    assertEquals(target, graph.target(path[path.length - 1]), message);
+                    double cost = 0;
+                    for (int i = 0; i < path.length; i++) {
+                        if (i > 0)
+                            assertEquals(graph.target(path[i - 1]), graph.source(path[i]), message);
+                        cost += weights[path[i]];
+                    }
+                    assertEquals(expected[target], cost, EPSILON, message);
+                }
+            }
+        }
+    }
+
+    private static double[] bellmanFord(RouteGraph graph, double[] weights, int source) {
+        double[] distances = new double[graph.airportCount()];
+        Arrays.fill(distances, Double.POSITIVE_INFINITY);
+        distances[source] = 0;
+        for (int pass = 1; pass < graph.airportCount(); pass++) {
+            for (int edge = 0; edge < graph.edgeCount(); edge++) {
+                double distance = distances[graph.source(edge)] + weights[edge];
+                if (distance < distances[graph.target(edge)])
+                    distances[graph.target(edge)] = distance;
+            }
+        }
+
+        return distances;
+    }
+
+    private static RouteGraph randomGraph(Random random) {
+        int airportCount = 2 + random.nextInt(30);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < airportCount; i++)
+            airports.add(new Airport(1 + i, "Airport " + i));
+
+        List<Route> routes = new ArrayList<>();
+        int routeCount = random.nextInt(airportCount * 4);
+        for (int r = 0; r < routeCount; r++) {
+            int from = random.nextInt(airportCount);
+            int to = random.nextInt(airportCount);
+            if (from != to)
+                routes.add(new Route(r + 1, from + 1, to + 1, 1, 1 + random.nextInt(3000), 10 + random.nextInt(50_000) / 100.0));
+        }
+
+        return RouteGraph.build(airports, routes);
+    }
+}
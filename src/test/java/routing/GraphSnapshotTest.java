@@ -0,0 +1,200 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphSnapshotTest {
+    private static final int VERSION_OFFSET = 4;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripRestoresNetworkAndTables() throws IOException {
+        RouteGraph graph = randomGraph();
+        GraphSnapshot snapshot = new GraphSnapshot(graph,
+                List.of(FloydWarshall.apply(graph, RouteMetric.KM), FloydWarshall.apply(graph, RouteMetric.PRICE)), 42);
+        Path path = directory.resolve("route_graph.snapshot");
+        snapshot.write(path);
+
+        assertEquals(snapshot.fileSize(), Files.size(path));
+        GraphSnapshot restored = GraphSnapshot.read(path);
+        assertEquals(42, restored.dataVersion());
+        assertEquals(snapshot.createdAt(), restored.createdAt());
+        assertSameNetwork(graph, restored.graph());
+
+        for (RouteMetric metric : RouteMetric.values()) {
+            AllPairs expected = snapshot.allPairs(metric);
+            AllPairs actual = restored.allPairs(metric);
+            assertSame(restored.graph(), actual.graph());
+            for (int i = 0; i < graph.airportCount(); i++) {
+                for (int j = 0; j < graph.airportCount(); j++) {
+                    assertEquals(expected.distance(i, j), actual.distance(i, j));
+                    assertArrayEquals(expected.airportPath(i, j), actual.airportPath(i, j));
+                }
+            }
+        }
+    }
+
+    @Test
+    void roundTripWithoutTables() throws IOException {
+        RouteGraph graph = randomGraph();
+        Path path = directory.resolve("route_graph.snapshot");
+        new GraphSnapshot(graph, List.of(), -1).write(path);
+
+        GraphSnapshot restored = GraphSnapshot.read(path);
+        assertEquals(-1, restored.dataVersion());
+        assertTrue(restored.allPairs().isEmpty());
+        assertNull(restored.allPairs(RouteMetric.KM));
+        assertSameNetwork(graph, restored.graph());
+    }
+
+    @Test
+    void rejectsTablesOfAnotherGraph() {
+        RouteGraph graph = randomGraph();
+        AllPairs other = FloydWarshall.apply(randomGraph(), RouteMetric.KM);
+        assertThrows(IllegalArgumentException.class, () -> new GraphSnapshot(graph, List.of(other), 0));
+        AllPairs custom = FloydWarshall.apply(graph, route -> route.getKm() + route.getPrice());
+        assertThrows(IllegalArgumentException.class, () -> new GraphSnapshot(graph, List.of(custom), 0));
+    }
+
+    @Test
+    void rejectsMissingFile() {
+        assertThrows(NoSuchFileException.class, () -> GraphSnapshot.read(directory.resolve("missing.snapshot")));
+    }
+
+    @Test
+    void rejectsCorruptPayload() throws IOException {
+        Path path = writeSnapshot();
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(path, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> GraphSnapshot.read(path));
+        assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+    }
+
+    @Test
+    void rejectsTruncatedOrExtendedFile() throws IOException {
+        Path path = writeSnapshot();
+        byte[] bytes = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IOException.class, () -> GraphSnapshot.read(path));
+
+        Files.write(path, Arrays.copyOf(bytes, bytes.length + 8));
+        assertThrows(IOException.class, () -> GraphSnapshot.read(path));
+
+        Files.write(path, Arrays.copyOf(bytes, 16));
+        assertThrows(IOException.class, () -> GraphSnapshot.read(path));
+    }
+
+    @Test
+    void rejectsOversizedFile() throws IOException {
+        Path path = writeSnapshot();
+        // Sparse: the file is never read past its size.
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1), GraphSnapshot.MAX_BYTES);
+        }
+
+        IOException e = assertThrows(IOException.class, () -> GraphSnapshot.read(path));
+        assertTrue(e.getMessage().contains("unexpected size"), e.getMessage());
+    }
+
+    @Test
+    void rejectsOtherFilesAndFormatVersions() throws IOException {
+        Path path = writeSnapshot();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt(GraphSnapshot.VERSION - 1).flip(), VERSION_OFFSET);
+        }
+        IOException e = assertThrows(IOException.class, () -> GraphSnapshot.read(path));
+        assertTrue(e.getMessage().contains("format version"), e.getMessage());
+
+        Files.writeString(path, "not a snapshot, but long enough to hold a header");
+        e = assertThrows(IOException.class, () -> GraphSnapshot.read(path));
+        assertTrue(e.getMessage().contains("not a route graph snapshot"), e.getMessage());
+    }
+
+    @Test
+    void writeReplacesPreviousSnapshot() throws IOException {
+        Path path = writeSnapshot();
+        new GraphSnapshot(randomGraph(), List.of(), 7).write(path);
+
+        assertEquals(7, GraphSnapshot.read(path).dataVersion());
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(path), files.toList());
+        }
+    }
+
+    private Path writeSnapshot() throws IOException {
+        RouteGraph graph = randomGraph();
+        Path path = directory.resolve("route_graph.snapshot");
+        new GraphSnapshot(graph, List.of(FloydWarshall.apply(graph, RouteMetric.KM)), 1).write(path);
+        return path;
+    }
+
+    private static void assertSameNetwork(RouteGraph expected, RouteGraph actual) {
+        assertEquals(expected.airportCount(), actual.airportCount());
+        assertEquals(expected.edgeCount(), actual.edgeCount());
+        for (int i = 0; i < expected.airportCount(); i++) {
+            Airport airport = expected.airport(i);
+            Airport restored = actual.airport(i);
+            assertEquals(airport.getId(), restored.getId());
+            assertEquals(airport.getName(), restored.getName());
+            assertEquals(airport.getLatitude(), restored.getLatitude());
+            assertEquals(airport.getLongitude(), restored.getLongitude());
+            assertEquals(i, actual.indexOf(airport.getId()));
+            assertEquals(expected.firstEdge(i), actual.firstEdge(i));
+            assertEquals(expected.lastEdge(i), actual.lastEdge(i));
+        }
+
+        double[] km = actual.weights(RouteMetric.KM);
+        double[] price = actual.weights(RouteMetric.PRICE);
+        for (int edge = 0; edge < expected.edgeCount(); edge++) {
+            assertEquals(expected.target(edge), actual.target(edge));
+            assertEquals(expected.routeId(edge), actual.routeId(edge));
+            assertEquals(expected.airlineId(edge), actual.airlineId(edge));
+            assertEquals(expected.weights(RouteMetric.KM)[edge], km[edge]);
+            assertEquals(expected.weights(RouteMetric.PRICE)[edge], price[edge]);
+            assertEquals(edge, actual.edgeOf(expected.routeId(edge)));
+        }
+    }
+
+    private static RouteGraph randomGraph() {
+        Random random = new Random(3);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            boolean located = i % 4 != 0;
+            airports.add(new Airport(101 + i, "Aéroport " + i, located ? random.nextDouble() * 90 : null,
+                    located ? random.nextDouble() * 180 : null));
+        }
+
+        List<Route> routes = new ArrayList<>();
+        for (int r = 0; r < 150; r++) {
+            int from = random.nextInt(airports.size());
+            int to = (from + 1 + random.nextInt(airports.size() - 1)) % airports.size();
+            routes.add(new Route(r + 1, 101 + from, 101 + to, 1 + random.nextInt(4), 100 + random.nextInt(5000),
+                    20 + random.nextInt(100_000) / 100.0));
+        }
+
+        return RouteGraph.build(airports, routes);
+    }
+}
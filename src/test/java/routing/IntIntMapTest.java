@@ -0,0 +1,50 @@
+package routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntIntMapTest {
+    @Test
+    void matchesHashMapThroughRehashes() {
+        Random random = new Random(1);
+        IntIntMap map = new IntIntMap(0);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            // Clustered keys collide in the low bits, and spread keys include negative ones.
+            int key = random.nextBoolean() ? random.nextInt(1000) << 12 : random.nextInt();
+            int value = random.nextInt(Integer.MAX_VALUE);
+            map.put(key, value);
+            expected.put(key, value);
+        }
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        for (int i = 0; i < 10_000; i++) {
+            int key = random.nextInt();
+            assertEquals(expected.getOrDefault(key, -1), map.get(key));
+        }
+    }
+
+    @Test
+    void replacesValues() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(Integer.MIN_VALUE, 1);
+        map.put(Integer.MIN_VALUE, 2);
+        map.put(0, 0);
+
+        assertEquals(2, map.size());
+        assertEquals(2, map.get(Integer.MIN_VALUE));
+        assertEquals(0, map.get(0));
+        assertEquals(-1, map.get(-1));
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> new IntIntMap(4).put(1, -1));
+    }
+}
@@ -0,0 +1,96 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks Yen's k shortest paths against the sorted costs of every loopless itinerary of small random networks.
+ */
+class KShortestPathsTest {
+    private static final double EPSILON = 1e-6;
+    private static final int K = 6;
+
+    static LongStream seeds() {
+        return LongStream.range(0, 100);
+    }
+
+    @ParameterizedTest
+    @MethodSource("seeds")
+    void findsTheKCheapestLooplessItineraries(long seed) {
+        Random random = new Random(seed);
+        RouteGraph graph = randomGraph(random);
+        for (RouteMetric metric : RouteMetric.values()) {
+            double[] weights = graph.weights(metric);
+            for (int source = 0; source < graph.airportCount(); source++) {
+                for (int target = 0; target < graph.airportCount(); target++) {
+                    if (source == target)
+                        continue;
+
+                    double[] expected = SimplePaths.between(graph, source, target).stream()
+                            .mapToDouble(path -> SimplePaths.cost(path, weights)).sorted().limit(K).toArray();
+                    List<int[]> actual = KShortestPaths.findPaths(graph, metric, source, target, K);
+                    String message = metric + " seed " + seed + ", " + source + " -> " + target;
+
+                    assertEquals(expected.length, actual.size(), message);
+                    Set<List<Integer>> distinct = new HashSet<>();
+                    for (int i = 0; i < actual.size(); i++) {
+                        int[] path = actual.get(i);
+                        assertEquals(expected[i], SimplePaths.cost(path, weights), EPSILON, message);
+                        assertLoopless(graph, path, source, target, message);
+                        assertTrue(distinct.add(Arrays.stream(path).boxed().toList()), message);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsNonPositiveK() {
+        RouteGraph graph = RouteGraph.build(List.of(new Airport(1, "A"), new Airport(2, "B")), List.of());
+        assertThrows(IllegalArgumentException.class, () -> KShortestPaths.findPaths(graph, RouteMetric.KM, 0, 1, 0));
+    }
+
+    private static void assertLoopless(RouteGraph graph, int[] path, int source, int target, String message) {
+        boolean[] visited = new boolean[graph.airportCount()];
+        visited[source] = true;
+        assertEquals(source, graph.source(path[0]), message);
+        for (int i = 0; i < path.length; i++) {
+            if (i > 0)
+                assertEquals(graph.target(path[i - 1]), graph.source(path[i]), message);
+            assertFalse(visited[graph.target(path[i])], message);
+            visited[graph.target(path[i])] = true;
+        }
+        assertEquals(target, graph.target(path[path.length - 1]), message);
+    }
+
+    private static RouteGraph randomGraph(Random random) {
+        int airportCount = 2 + random.nextInt(6);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < airportCount; i++)
+            airports.add(new Airport(1 + i, "Airport " + i));
+
+        List<Route> routes = new ArrayList<>();
+        int routeCount = random.nextInt(airportCount * 3);
+        for (int r = 0; r < routeCount; r++) {
+            int from = random.nextInt(airportCount);
+            int to = random.nextInt(airportCount);
+            if (from != to)
+                routes.add(new Route(r + 1, from + 1, to + 1, 1, 100 * (1 + random.nextInt(5)), 10 + random.nextInt(90)));
+        }
+
+        return RouteGraph.build(airports, routes);
+    }
+}
@@ -0,0 +1,93 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the Pareto frontier against the non-dominated itineraries among every loopless one, on small random
+ * networks with parallel routes and ties.
+ */
+class ParetoSearchTest {
+    private static final double EPSILON = 1e-6;
+
+    static LongStream seeds() {
+        return LongStream.range(0, 100);
+    }
+
+    @ParameterizedTest
+    @MethodSource("seeds")
+    void findsEveryNonDominatedItinerary(long seed) {
+        Random random = new Random(seed);
+        RouteGraph graph = randomGraph(random);
+        double[] km = graph.weights(RouteMetric.KM);
+        double[] price = graph.weights(RouteMetric.PRICE);
+        for (int source = 0; source < graph.airportCount(); source++) {
+            for (int target = 0; target < graph.airportCount(); target++) {
+                if (source == target)
+                    continue;
+
+                List<double[]> expected = frontier(SimplePaths.between(graph, source, target), km, price);
+                List<int[]> actual = ParetoSearch.findFrontier(graph, source, target);
+                String message = "seed " + seed + ", " + source + " -> " + target;
+
+                assertEquals(expected.size(), actual.size(), message);
+                for (int i = 0; i < actual.size(); i++) {
+                    int[] path = actual.get(i);
+                    assertEquals(source, graph.source(path[0]), message);
+                    assertEquals(target, graph.target(path[path.length - 1]), message);
+                    assertEquals(expected.get(i)[0], SimplePaths.cost(path, km), EPSILON, message);
+                    assertEquals(expected.get(i)[1], SimplePaths.cost(path, price), EPSILON, message);
+                }
+            }
+        }
+    }
+
+    /**
+     * The distinct non-dominated (km, price) costs, from the shortest to the cheapest.
+     */
+    private static List<double[]> frontier(List<int[]> paths, double[] km, double[] price) {
+        List<double[]> costs = new ArrayList<>();
+        for (int[] path : paths)
+            costs.add(new double[]{SimplePaths.cost(path, km), SimplePaths.cost(path, price)});
+        costs.sort(Comparator.<double[]>comparingDouble(cost -> cost[0]).thenComparingDouble(cost -> cost[1]));
+
+        List<double[]> frontier = new ArrayList<>();
+        for (double[] cost : costs) {
+            if (frontier.isEmpty() || cost[1] < frontier.getLast()[1] - EPSILON)
+                frontier.add(cost);
+        }
+
+        return frontier;
+    }
+
+    /**
+     * Few airports and distances, so that itineraries often tie on one criterion.
+     */
+    private static RouteGraph randomGraph(Random random) {
+        int airportCount = 2 + random.nextInt(6);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < airportCount; i++)
+            airports.add(new Airport(1 + i, "Airport " + i));
+
+        List<Route> routes = new ArrayList<>();
+        int routeCount = random.nextInt(airportCount * 3);
+        for (int r = 0; r < routeCount; r++) {
+            int from = random.nextInt(airportCount);
+            int to = random.nextInt(airportCount);
+            if (from != to)
+                routes.add(new Route(r + 1, from + 1, to + 1, 1, 100 * (1 + random.nextInt(5)), 10 * (1 + random.nextInt(5))));
+        }
+
+        return RouteGraph.build(airports, routes);
+    }
+}
@@ -0,0 +1,81 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RouteGraphTest {
+    private static final List<Airport> AIRPORTS = List.of(
+            new Airport(10, "A"), new Airport(20, "B"), new Airport(30, "C"));
+
+    @Test
+    void groupsRoutesByDepartureAirport() {
+        List<Route> routes = List.of(
+                new Route(1, 30, 10, 1, 300, 30),
+                new Route(2, 10, 20, 2, 100, 10),
+                new Route(3, 10, 30, 1, 200, 20),
+                new Route(4, 20, 30, 3, 150, 15));
+        RouteGraph graph = RouteGraph.build(AIRPORTS, routes);
+
+        assertEquals(3, graph.airportCount());
+        assertEquals(4, graph.edgeCount());
+        assertEquals(List.of(2, 3), routeIds(graph, 0));
+        assertEquals(List.of(4), routeIds(graph, 1));
+        assertEquals(List.of(1), routeIds(graph, 2));
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            Route route = graph.route(edge);
+            assertEquals(graph.indexOf(route.getIdFrom()), graph.source(edge));
+            assertEquals(graph.indexOf(route.getIdTo()), graph.target(edge));
+            assertEquals(route.getKm(), graph.weights(RouteMetric.KM)[edge]);
+            assertEquals(route.getPrice(), graph.weights(RouteMetric.PRICE)[edge]);
+            assertEquals(edge, graph.edgeOf(route.getId()));
+        }
+    }
+
+    @Test
+    void keepsParallelRoutesAndDropsUnknownAirports() {
+        List<Route> routes = List.of(
+                new Route(1, 10, 20, 1, 100, 50),
+                new Route(2, 10, 20, 2, 120, 40),
+                new Route(3, 10, 99, 1, 10, 1),
+                new Route(4, 99, 20, 1, 10, 1));
+        RouteGraph graph = RouteGraph.build(AIRPORTS, routes);
+
+        assertEquals(2, graph.edgeCount());
+        assertEquals(-1, graph.indexOf(99));
+        assertEquals(-1, graph.edgeOf(3));
+        assertEquals(1, graph.routeId(graph.cheapestEdge(0, 1, graph.weights(RouteMetric.KM))));
+        assertEquals(2, graph.routeId(graph.cheapestEdge(0, 1, graph.weights(RouteMetric.PRICE))));
+        assertEquals(-1, graph.cheapestEdge(1, 0, graph.weights(RouteMetric.KM)));
+    }
+
+    @Test
+    void evaluatesOtherMetricsPerEdge() {
+        RouteGraph graph = RouteGraph.build(AIRPORTS, List.of(new Route(1, 10, 20, 1, 100, 50)));
+
+        assertArrayEquals(new double[]{150}, graph.weights(route -> route.getKm() + route.getPrice()));
+        Route route = graph.routes(new int[]{0}).getFirst();
+        assertEquals(List.of(1, 10, 20, 1, 100, 50.0),
+                List.of(route.getId(), route.getIdFrom(), route.getIdTo(), route.getAirlineId(), route.getKm(), route.getPrice()));
+    }
+
+    @Test
+    void comparesAirportsInAnyOrder() {
+        RouteGraph graph = RouteGraph.build(AIRPORTS, List.of());
+
+        assertTrue(graph.hasSameAirports(AIRPORTS.reversed()));
+        assertTrue(graph.hasSameAirports(List.of(new Airport(20, "B"), new Airport(30, "C"), new Airport(10, "A"))));
+        assertFalse(graph.hasSameAirports(AIRPORTS.subList(0, 2)));
+        assertFalse(graph.hasSameAirports(List.of(new Airport(10, "A"), new Airport(20, "B"), new Airport(40, "D"))));
+    }
+
+    private static List<Integer> routeIds(RouteGraph graph, int airport) {
+        return IntStream.range(graph.firstEdge(airport), graph.lastEdge(airport))
+                .map(graph::routeId).boxed().toList();
+    }
+}
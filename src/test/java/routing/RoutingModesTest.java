@@ -0,0 +1,178 @@
+package routing;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import services.RoutingMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks every routing mode, and the searches built on them, against Dijkstra's algorithm on random networks where
+ * some airports have no coordinates.
+ */
+class RoutingModesTest {
+    private static final double EPSILON = 1e-6;
+    private static final int PAIRS = 25;
+
+    static LongStream seeds() {
+        return LongStream.range(0, 60);
+    }
+
+    @ParameterizedTest
+    @MethodSource("seeds")
+    void everyModeFindsTheCheapestItinerary(long seed) {
+        RouteGraph graph = randomGraph(seed);
+        Random random = new Random(seed);
+        for (RouteMetric metric : RouteMetric.values()) {
+            ContractionHierarchy hierarchy = ContractionHierarchy.build(graph, metric);
+            AllPairs sequential = FloydWarshall.apply(graph, metric);
+            AllPairs blocked = FloydWarshall.applyBlocked(graph, metric, ForkJoinPool.commonPool(), 4);
+
+            for (int p = 0; p < PAIRS; p++) {
+                int source = random.nextInt(graph.airportCount());
+                int target = random.nextInt(graph.airportCount());
+                if (source == target)
+                    continue;
+
+                double expected = cost(graph.routes(Dijkstra.findPath(graph, metric, source, target)), metric);
+                for (RoutingMode mode : RoutingMode.values()) {
+                    List<Route> routes = switch (mode) {
+                        case DIJKSTRA -> graph.routes(Dijkstra.findPath(graph, metric, source, target));
+                        case A_STAR -> graph.routes(AStar.findPath(graph, metric, source, target));
+                        case BIDIRECTIONAL_DIJKSTRA ->
+                                graph.routes(BidirectionalDijkstra.findPath(graph, metric, source, target));
+                        case CONTRACTION_HIERARCHIES -> hierarchy.routes(source, target);
+                        case FLOYD_WARSHALL -> sequential.routes(source, target);
+                        case PARALLEL_FLOYD_WARSHALL -> blocked.routes(source, target);
+                    };
+
+                    String message = mode + " " + metric + " seed " + seed + ", " + source + " -> " + target;
+                    assertItinerary(graph, routes, source, target, message);
+                    assertEquals(expected, cost(routes, metric), EPSILON, message);
+                }
+
+                assertEquals(expected, sequential.distance(source, target), EPSILON);
+                assertEquals(expected, blocked.distance(source, target), EPSILON);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("seeds")
+    void searchesStartFromTheCheapestItinerary(long seed) {
+        RouteGraph graph = randomGraph(seed);
+        Random random = new Random(seed);
+        for (int p = 0; p < PAIRS; p++) {
+            int source = random.nextInt(graph.airportCount());
+            int target = random.nextInt(graph.airportCount());
+            if (source == target)
+                continue;
+
+            double shortest = cost(graph.routes(Dijkstra.findPath(graph, RouteMetric.KM, source, target)), RouteMetric.KM);
+            double cheapest = cost(graph.routes(Dijkstra.findPath(graph, RouteMetric.PRICE, source, target)), RouteMetric.PRICE);
+            String message = "seed " + seed + ", " + source + " -> " + target;
+
+            List<int[]> frontier = ParetoSearch.findFrontier(graph, source, target);
+            if (shortest == Double.POSITIVE_INFINITY) {
+                assertTrue(frontier.isEmpty(), message);
+                continue;
+            }
+            assertEquals(shortest, cost(graph.routes(frontier.getFirst()), RouteMetric.KM), EPSILON, message);
+            assertEquals(cheapest, cost(graph.routes(frontier.getLast()), RouteMetric.PRICE), EPSILON, message);
+
+            List<int[]> alternatives = KShortestPaths.findPaths(graph, RouteMetric.KM, source, target, 4);
+            assertEquals(shortest, cost(graph.routes(alternatives.getFirst()), RouteMetric.KM), EPSILON, message);
+            for (int i = 1; i < alternatives.size(); i++) {
+                assertItinerary(graph, graph.routes(alternatives.get(i)), source, target, message);
+                assertTrue(cost(graph.routes(alternatives.get(i - 1)), RouteMetric.KM)
+                        <= cost(graph.routes(alternatives.get(i)), RouteMetric.KM) + EPSILON, message);
+            }
+
+            int[] unconstrained = ConstrainedSearch.findPath(graph, RouteMetric.PRICE, source, target, RouteConstraints.none());
+            assertEquals(cheapest, cost(graph.routes(unconstrained), RouteMetric.PRICE), EPSILON, message);
+        }
+    }
+
+    /**
+     * The route through the airport without coordinates is far shorter than the great-circle distance of the airport
+     * before it, so a great-circle estimate would settle the direct route first.
+     */
+    @Test
+    void aStarFindsPathsThroughAirportsWithoutCoordinates() {
+        List<Airport> airports = List.of(
+                new Airport(1, "Source", 0.0, 0.0),
+                new Airport(2, "Target", 0.0, 10.0),
+                new Airport(3, "Detour", 0.0, -1.0),
+                new Airport(4, "Unknown", null, null));
+        List<Route> routes = List.of(
+                new Route(1, 1, 2, 1, 1200, 100),
+                new Route(2, 1, 3, 1, 112, 10),
+                new Route(3, 3, 4, 1, 1, 1),
+                new Route(4, 4, 2, 1, 1, 1));
+        RouteGraph graph = RouteGraph.build(airports, routes);
+
+        assertFalse(graph.hasAllCoordinates());
+        assertEquals(List.of(2, 3, 4),
+                graph.routes(AStar.findPath(graph, RouteMetric.KM, 0, 1)).stream().map(Route::getId).toList());
+    }
+
+    /**
+     * Airports around the globe, a third of them without coordinates. Routes between airports with coordinates are at
+     * least as long as the great circle; the other ones have any length, possibly much shorter.
+     */
+    private static RouteGraph randomGraph(long seed) {
+        Random random = new Random(seed);
+        int airportCount = 2 + random.nextInt(40);
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < airportCount; i++) {
+            boolean located = random.nextDouble() >= 1 / 3.0;
+            airports.add(new Airport(1 + i, "Airport " + i,
+                    located ? 180 * random.nextDouble() - 90 : null, located ? 360 * random.nextDouble() - 180 : null));
+        }
+
+        List<Route> routes = new ArrayList<>();
+        int routeCount = random.nextInt(airportCount * 4);
+        for (int r = 0; r < routeCount; r++) {
+            Airport from = airports.get(random.nextInt(airportCount));
+            Airport to = airports.get(random.nextInt(airportCount));
+            if (from == to)
+                continue;
+
+            int km;
+            if (from.getLatitude() != null && to.getLatitude() != null) {
+                double greatCircle = GreatCircle.km(from.getLatitude(), from.getLongitude(), to.getLatitude(), to.getLongitude());
+                km = (int) Math.ceil(greatCircle * (1 + random.nextDouble()));
+            } else {
+                km = 1 + random.nextInt(3000);
+            }
+            double price = 10 + random.nextInt(50_000) / 100.0;
+            routes.add(new Route(routes.size() + 1, from.getId(), to.getId(), 1 + random.nextInt(5), km, price));
+        }
+
+        return RouteGraph.build(airports, routes);
+    }
+
+    private static double cost(List<Route> routes, ToDoubleFunction<Route> metric) {
+        return routes.isEmpty() ? Double.POSITIVE_INFINITY : routes.stream().mapToDouble(metric).sum();
+    }
+
+    private static void assertItinerary(RouteGraph graph, List<Route> routes, int source, int target, String message) {
+        if (routes.isEmpty())
+            return;
+
+        assertEquals(graph.airport(source).getId(), routes.getFirst().getIdFrom(), message);
+        assertEquals(graph.airport(target).getId(), routes.getLast().getIdTo(), message);
+        for (int i = 1; i < routes.size(); i++)
+            assertEquals(routes.get(i - 1).getIdTo(), routes.get(i).getIdFrom(), message);
+    }
+}
@@ -0,0 +1,51 @@
+package routing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brute-force enumeration of the loopless itineraries between two airports, the reference of the searches tested
+ * on small networks.
+ */
+final class SimplePaths {
+    private SimplePaths() {
+    }
+
+    /**
+     * Lists every path visiting each airport at most once, parallel routes giving distinct paths.
+     *
+     * @return the edge slots of every path, in travel order
+     */
+    static List<int[]> between(RouteGraph graph, int source, int target) {
+        List<int[]> paths = new ArrayList<>();
+        extend(graph, source, target, new boolean[graph.airportCount()], new ArrayList<>(), paths);
+        return paths;
+    }
+
+    static double cost(int[] path, double[] weights) {
+        double cost = 0;
+        for (int edge : path)
+            cost += weights[edge];
+        return cost;
+    }
+
+    private static void extend(RouteGraph graph, int node, int target, boolean[] visited, List<Integer> edges,
+                               List<int[]> paths) {
+        if (node == target) {
+            paths.add(edges.stream().mapToInt(Integer::intValue).toArray());
+            return;
+        }
+
+        visited[node] = true;
+        for (int edge = graph.firstEdge(node); edge < graph.lastEdge(node); edge++) {
+            int next = graph.target(edge);
+            if (visited[next])
+                continue;
+
+            edges.add(edge);
+            extend(graph, next, target, visited, edges, paths);
+            edges.removeLast();
+        }
+        visited[node] = false;
+    }
+}
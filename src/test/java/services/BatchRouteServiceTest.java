@@ -0,0 +1,106 @@
+package services;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+import routing.Dijkstra;
+import routing.RouteGraph;
+import routing.RouteMetric;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchRouteServiceTest {
+    private static final double EPSILON = 1e-6;
+
+    private final RouteGraph graph = randomGraph(new Random(11));
+    private final BatchRouteService service = new BatchRouteService(graph);
+
+    @Test
+    void resolvesEveryQueryLikeDijkstra() {
+        Random random = new Random(5);
+        List<RouteQuery> queries = new ArrayList<>();
+        // Few departure airports, so that most queries share their search.
+        for (int i = 0; i < 400; i++) {
+            Airport start = graph.airport(random.nextInt(5));
+            Airport end = graph.airport(random.nextInt(graph.airportCount()));
+            if (start != end)
+                queries.add(new RouteQuery(start, end, random.nextBoolean() ? RouteMetric.KM : RouteMetric.PRICE));
+        }
+
+        Map<RouteQuery, List<Route>> results = resolve(queries);
+
+        assertEquals(queries.size(), results.size());
+        for (RouteQuery query : queries) {
+            int start = graph.indexOf(query.start().getId());
+            int end = graph.indexOf(query.end().getId());
+            List<Route> expected = graph.routes(Dijkstra.findPath(graph, query.metric(), start, end));
+            List<Route> routes = results.get(query);
+            assertEquals(cost(expected, query.metric()), cost(routes, query.metric()), EPSILON);
+            if (!routes.isEmpty()) {
+                assertEquals(query.start().getId(), routes.getFirst().getIdFrom());
+                assertEquals(query.end().getId(), routes.getLast().getIdTo());
+            }
+        }
+    }
+
+    @Test
+    void answersUnknownAirportsAndFailedSearchesWithNoItinerary() {
+        ToDoubleFunction<Route> failing = _ -> {
+            throw new IllegalStateException("metric unavailable");
+        };
+        RouteQuery unknown = new RouteQuery(graph.airport(0), new Airport(-1, "Unknown"), RouteMetric.KM);
+        RouteQuery failed = new RouteQuery(graph.airport(0), graph.airport(1), failing);
+        RouteQuery resolved = new RouteQuery(graph.airport(0), graph.airport(1), RouteMetric.KM);
+
+        Map<RouteQuery, List<Route>> results = resolve(List.of(unknown, failed, resolved));
+
+        assertEquals(List.of(), results.get(unknown));
+        assertEquals(List.of(), results.get(failed));
+        assertEquals(cost(graph.routes(Dijkstra.findPath(graph, RouteMetric.KM, 0, 1)), RouteMetric.KM),
+                cost(results.get(resolved), RouteMetric.KM), EPSILON);
+    }
+
+    @Test
+    void streamsOneResultPerQuery() {
+        RouteQuery query = new RouteQuery(graph.airport(0), graph.airport(1), RouteMetric.PRICE);
+
+        assertEquals(3, service.getRoutesBetweenAirports(List.of(query, query, query)).count());
+        assertEquals(0, service.getRoutesBetweenAirports(List.of()).count());
+    }
+
+    /**
+     * Collects the results by query identity, the queries of a batch being distinct instances.
+     */
+    private Map<RouteQuery, List<Route>> resolve(List<RouteQuery> queries) {
+        return service.getRoutesBetweenAirports(queries).collect(Collectors.toMap(
+                RouteQuery.Result::query, RouteQuery.Result::routes, (a, _) -> a, IdentityHashMap::new));
+    }
+
+    private static double cost(List<Route> routes, ToDoubleFunction<Route> metric) {
+        return routes.isEmpty() ? Double.POSITIVE_INFINITY : routes.stream().mapToDouble(metric).sum();
+    }
+
+    private static RouteGraph randomGraph(Random random) {
+        List<Airport> airports = new ArrayList<>();
+        for (int i = 0; i < 60; i++)
+            airports.add(new Airport(1 + i, "Airport " + i));
+
+        List<Route> routes = new ArrayList<>();
+        for (int r = 0; r < 200; r++) {
+            int from = random.nextInt(airports.size());
+            int to = random.nextInt(airports.size());
+            if (from != to)
+                routes.add(new Route(r + 1, from + 1, to + 1, 1, 1 + random.nextInt(3000), 10 + random.nextInt(500)));
+        }
+
+        return RouteGraph.build(airports, routes);
+    }
+}
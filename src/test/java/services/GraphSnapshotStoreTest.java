@@ -0,0 +1,125 @@
+package services;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import routing.GraphSnapshot;
+import routing.RouteGraph;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphSnapshotStoreTest {
+    private static final List<Airport> AIRPORTS = List.of(new Airport(101, "A"), new Airport(102, "B"),
+            new Airport(103, "C"));
+    private static final RouteGraph GRAPH = RouteGraph.build(AIRPORTS, List.of(
+            new Route(1001, 101, 102, 201, 500, 80),
+            new Route(1002, 102, 103, 201, 700, 90),
+            new Route(1003, 101, 103, 202, 1500, 60),
+            new Route(1004, 103, 101, 202, 1500, 70)));
+    private static final Function<List<Integer>, List<Route>> NO_READS = _ -> {
+        throw new AssertionError("nothing to read again");
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void rejectsSnapshotsOfOtherData() throws IOException {
+        Path path = directory.resolve("route_graph.snapshot");
+        RouteGraph graph = RouteGraph.build(List.of(new Airport(1, "A"), new Airport(2, "B")), List.of());
+        new GraphSnapshot(graph, List.of(), 123).write(path);
+        GraphSnapshot snapshot = GraphSnapshot.read(path);
+
+        assertTrue(GraphSnapshotStore.isCurrent(snapshot, 123L));
+        assertFalse(GraphSnapshotStore.isCurrent(snapshot, 124L));
+        assertTrue(GraphSnapshotStore.isCurrent(snapshot, null), "trusted when the database cannot tell");
+    }
+
+    @Test
+    void addsCreatedRoutes() {
+        List<Route> created = List.of(new Route(1005, 102, 101, 203, 500, 40), new Route(1006, 101, 102, 203, 400, 95));
+        RouteGraph graph = GraphSnapshotStore.applyRouteChange(GRAPH,
+                new EntityChange(Route.class, EntityChange.Type.CREATE, 2, created, null), NO_READS);
+
+        List<Route> expected = new ArrayList<>(routes(GRAPH));
+        expected.addAll(created);
+        assertSameRoutes(expected, graph);
+        assertEquals(GRAPH.airports(), graph.airports());
+    }
+
+    @Test
+    void removesDeletedRoutes() {
+        RouteGraph graph = GraphSnapshotStore.applyRouteChange(GRAPH, new EntityChange(Route.class,
+                EntityChange.Type.DELETE, 2, List.of(), Map.of("airline_id", 202)), NO_READS);
+
+        assertSameRoutes(routes(GRAPH).stream().filter(route -> route.getAirlineId() != 202).toList(), graph);
+    }
+
+    @Test
+    void readsUpdatedRoutesAgain() {
+        List<List<Integer>> reads = new ArrayList<>();
+        RouteGraph graph = GraphSnapshotStore.applyRouteChange(GRAPH, new EntityChange(Route.class,
+                EntityChange.Type.UPDATE, 1, List.of(), Map.of("id_from", 102, "km", 700)), ids -> {
+            reads.add(ids);
+            return List.of(new Route(1002, 102, 101, 201, 650, 85));
+        });
+
+        assertEquals(List.of(List.of(1002)), reads);
+        assertEquals(GRAPH.edgeCount(), graph.edgeCount());
+        Route updated = graph.route(graph.edgeOf(1002));
+        assertEquals(101, updated.getIdTo());
+        assertEquals(650, updated.getKm());
+        assertEquals(85, updated.getPrice());
+    }
+
+    @Test
+    void rejectsChangesThatCannotBeApplied() {
+        List<EntityChange> changes = List.of(
+                // Created routes unknown, or without their generated IDs.
+                new EntityChange(Route.class, EntityChange.Type.CREATE, 1),
+                new EntityChange(Route.class, EntityChange.Type.CREATE, 1, List.of(new Route(101, 102, 201, 1, 1)), null),
+                new EntityChange(Route.class, EntityChange.Type.CREATE, 1, List.of(new Route(1001, 101, 102, 201, 1, 1)), null),
+                new EntityChange(Route.class, EntityChange.Type.CREATE, 1, List.of(new Route(1009, 101, 109, 201, 1, 1)), null),
+                // Filters unknown, or matching another number of rows than the database did.
+                new EntityChange(Route.class, EntityChange.Type.DELETE, 1),
+                new EntityChange(Route.class, EntityChange.Type.DELETE, 1, List.of(), Map.of("airline_id", 202)),
+                new EntityChange(Route.class, EntityChange.Type.UPDATE, 3, List.of(), Map.of("km", 1500)));
+        for (EntityChange change : changes)
+            assertNull(GraphSnapshotStore.applyRouteChange(GRAPH, change,
+                    ids -> ids.stream().map(GRAPH::edgeOf).map(GRAPH::route).toList()), change.toString());
+
+        // A route gone before it could be read again.
+        assertNull(GraphSnapshotStore.applyRouteChange(GRAPH, new EntityChange(Route.class, EntityChange.Type.UPDATE,
+                2, List.of(), Map.of("km", 1500)), _ -> List.of(new Route(1003, 101, 103, 202, 1400, 60))));
+    }
+
+    private static List<Route> routes(RouteGraph graph) {
+        List<Route> routes = new ArrayList<>();
+        for (int edge = 0; edge < graph.edgeCount(); edge++)
+            routes.add(graph.route(edge));
+        return routes;
+    }
+
+    private static void assertSameRoutes(List<Route> expected, RouteGraph graph) {
+        assertNotNull(graph);
+        assertEquals(expected.size(), graph.edgeCount());
+        for (Route route : expected) {
+            int edge = graph.edgeOf(route.getId());
+            assertNotEquals(-1, edge, "route " + route.getId());
+            Route actual = graph.route(edge);
+            assertEquals(route.getIdFrom(), actual.getIdFrom());
+            assertEquals(route.getIdTo(), actual.getIdTo());
+            assertEquals(route.getAirlineId(), actual.getAirlineId());
+            assertEquals(route.getKm(), actual.getKm());
+            assertEquals(route.getPrice(), actual.getPrice());
+        }
+    }
+}
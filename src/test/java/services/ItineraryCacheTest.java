@@ -0,0 +1,134 @@
+package services;
+
+import entities.Airport;
+import entities.Route;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import routing.RouteMetric;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItineraryCacheTest {
+    private static final List<Route> ITINERARY = List.of(new Route(1, 1, 2, 1, 500, 80), new Route(2, 2, 3, 1, 700, 90));
+    private static final List<List<Route>> FRONTIER = List.of(ITINERARY, List.of(new Route(3, 1, 3, 2, 1500, 60)));
+
+    @BeforeEach
+    void clear() {
+        ItineraryCache.clear();
+    }
+
+    @Test
+    void servesItinerariesOfTheCurrentVersion() {
+        ItineraryCache.put(1, 3, RouteMetric.KM, ITINERARY, ItineraryCache.version());
+
+        assertEquals(ITINERARY, ItineraryCache.get(1, 3, RouteMetric.KM));
+        assertNull(ItineraryCache.get(1, 3, RouteMetric.PRICE));
+        assertNull(ItineraryCache.get(3, 1, RouteMetric.KM));
+        assertNull(ItineraryCache.getFrontier(1, 3));
+    }
+
+    @Test
+    void cachesEmptyItineraries() {
+        ItineraryCache.put(1, 4, RouteMetric.PRICE, List.of(), ItineraryCache.version());
+        ItineraryCache.putFrontier(1, 4, List.of(), ItineraryCache.version());
+
+        assertEquals(List.of(), ItineraryCache.get(1, 4, RouteMetric.PRICE));
+        assertEquals(List.of(), ItineraryCache.getFrontier(1, 4));
+    }
+
+    @Test
+    void routeAndAirportWritesInvalidateEveryEntry() {
+        for (Class<? extends entities.Entity> table : List.of(Route.class, Airport.class)) {
+            long version = ItineraryCache.version();
+            ItineraryCache.put(1, 3, RouteMetric.KM, ITINERARY, version);
+            ItineraryCache.putFrontier(1, 3, FRONTIER, version);
+            assertNotNull(ItineraryCache.get(1, 3, RouteMetric.KM));
+
+            MyBatis.notifyChange(table, EntityChange.Type.UPDATE, 1);
+
+            assertTrue(ItineraryCache.version() > version);
+            assertNull(ItineraryCache.get(1, 3, RouteMetric.KM), table.getSimpleName());
+            assertNull(ItineraryCache.getFrontier(1, 3), table.getSimpleName());
+            assertEquals(0, ItineraryCache.stats().entries());
+            assertEquals(0, ItineraryCache.stats().weight());
+        }
+    }
+
+    @Test
+    void ignoresItinerariesOfAnOutdatedNetwork() {
+        long version = ItineraryCache.version();
+        MyBatis.notifyChange(Route.class, EntityChange.Type.DELETE, 1);
+
+        ItineraryCache.put(1, 3, RouteMetric.KM, ITINERARY, version);
+        ItineraryCache.putFrontier(1, 3, FRONTIER, version);
+
+        assertNull(ItineraryCache.get(1, 3, RouteMetric.KM));
+        assertNull(ItineraryCache.getFrontier(1, 3));
+    }
+
+    @Test
+    void writesWithoutRowsKeepTheVersion() {
+        long version = ItineraryCache.version();
+        MyBatis.notifyChange(Route.class, EntityChange.Type.UPDATE, 0);
+
+        assertEquals(version, ItineraryCache.version());
+    }
+
+    @Test
+    void servesFrontiersApartFromSingleItineraries() {
+        long version = ItineraryCache.version();
+        ItineraryCache.putFrontier(1, 3, FRONTIER, version);
+        ItineraryCache.put(1, 3, RouteMetric.KM, FRONTIER.getFirst(), version);
+
+        assertEquals(FRONTIER, ItineraryCache.getFrontier(1, 3));
+        assertEquals(FRONTIER.getFirst(), ItineraryCache.get(1, 3, RouteMetric.KM));
+        assertEquals((2 + 1 + 1) + (2 + 1), ItineraryCache.stats().weight());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        long version = ItineraryCache.version();
+        long evictions = ItineraryCache.stats().evictions();
+        for (int i = 0; i < ItineraryCache.MAX_ENTRIES; i++)
+            ItineraryCache.put(i, i + 1, RouteMetric.KM, List.of(), version);
+        assertNotNull(ItineraryCache.get(0, 1, RouteMetric.KM));
+
+        ItineraryCache.put(-1, 0, RouteMetric.KM, List.of(), version);
+
+        assertEquals(ItineraryCache.MAX_ENTRIES, ItineraryCache.stats().entries());
+        assertNotNull(ItineraryCache.get(0, 1, RouteMetric.KM));
+        assertNull(ItineraryCache.get(1, 2, RouteMetric.KM));
+        assertEquals(evictions + 1, ItineraryCache.stats().evictions());
+    }
+
+    @Test
+    void boundsTheTotalWeight() {
+        long version = ItineraryCache.version();
+        List<Route> legs = new ArrayList<>();
+        for (int i = 0; i < 99; i++)
+            legs.add(new Route(i + 1, i, i + 1, 1, 100, 10));
+
+        for (int i = 0; i < ItineraryCache.MAX_WEIGHT / 100 + 10; i++)
+            ItineraryCache.put(i, i + 1, RouteMetric.PRICE, legs, version);
+
+        assertTrue(ItineraryCache.stats().weight() <= ItineraryCache.MAX_WEIGHT);
+        assertEquals(ItineraryCache.MAX_WEIGHT / 100, ItineraryCache.stats().entries());
+    }
+
+    @Test
+    void routeServiceAnswersCachedQueriesWithoutTheNetwork() {
+        Airport start = new Airport(1, "Start");
+        Airport end = new Airport(3, "End");
+        ItineraryCache.put(1, 3, RouteMetric.KM, ITINERARY, ItineraryCache.version());
+        ItineraryCache.putFrontier(1, 3, FRONTIER, ItineraryCache.version());
+
+        // No airport list and no database: only the cache can answer.
+        RouteService service = new RouteService(List.of(), start, end);
+        for (RoutingMode mode : RoutingMode.values())
+            assertEquals(ITINERARY, service.getRoutesBetweenAirports(RouteMetric.KM, mode), mode.name());
+        assertEquals(FRONTIER, service.getParetoRoutes());
+    }
+}
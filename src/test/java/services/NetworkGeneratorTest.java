@@ -0,0 +1,128 @@
+package services;
+
+import entities.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NetworkGeneratorTest {
+    private static final NetworkGenerator.Settings SETTINGS = NetworkGenerator.Settings.of(42, 300)
+            .withPassengers(200).withTrips(1000);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void equalSettingsGiveEqualDatasets() throws IOException {
+        Path first = write(SETTINGS, directory.resolve("first"));
+        Path second = write(SETTINGS, directory.resolve("second"));
+        Path other = write(NetworkGenerator.Settings.of(43, 300).withPassengers(200).withTrips(1000),
+                directory.resolve("other"));
+
+        for (String file : List.of("airlines.jsonl", "airports.jsonl", "routes.jsonl", "passengers.jsonl", "trips.jsonl"))
+            assertArrayEquals(Files.readAllBytes(first.resolve(file)), Files.readAllBytes(second.resolve(file)), file);
+        assertNotEquals(Files.readString(first.resolve("airports.jsonl")), Files.readString(other.resolve("airports.jsonl")));
+        assertNotEquals(Files.readString(first.resolve("routes.jsonl")), Files.readString(other.resolve("routes.jsonl")));
+    }
+
+    @Test
+    void generatesEntitiesInForeignKeyOrder() throws IOException {
+        List<Entity> entities = new ArrayList<>();
+        new NetworkGenerator(SETTINGS).generate(collector(entities));
+
+        Set<Integer> airlines = new HashSet<>();
+        Set<Integer> airports = new HashSet<>();
+        Set<Integer> routes = new HashSet<>();
+        Set<Integer> passengers = new HashSet<>();
+        int trips = 0;
+        for (Entity entity : entities) {
+            switch (entity) {
+                case Airline airline -> {
+                    assertTrue(airports.isEmpty());
+                    assertEquals(NetworkGenerator.FIRST_AIRLINE_ID + airlines.size(), airline.getId());
+                    airlines.add(airline.getId());
+                }
+                case Airport airport -> {
+                    assertTrue(routes.isEmpty());
+                    assertEquals(NetworkGenerator.FIRST_AIRPORT_ID + airports.size(), airport.getId());
+                    assertTrue(Math.abs(airport.getLatitude()) <= 90 && Math.abs(airport.getLongitude()) <= 180);
+                    airports.add(airport.getId());
+                }
+                case Route route -> {
+                    assertTrue(passengers.isEmpty());
+                    assertEquals(NetworkGenerator.FIRST_ROUTE_ID + routes.size(), route.getId());
+                    assertTrue(airports.contains(route.getIdFrom()) && airports.contains(route.getIdTo()));
+                    assertNotEquals(route.getIdFrom(), route.getIdTo());
+                    assertTrue(airlines.contains(route.getAirlineId()));
+                    assertTrue(route.getKm() > 0 && route.getPrice() > 0);
+                    routes.add(route.getId());
+                }
+                case Passenger passenger -> {
+                    assertEquals(0, trips);
+                    assertEquals(NetworkGenerator.FIRST_PASSENGER_ID + passengers.size(), passenger.getId());
+                    passengers.add(passenger.getId());
+                }
+                case Trip trip -> {
+                    assertEquals(NetworkGenerator.FIRST_TRIP_ID + trips, trip.getId());
+                    assertTrue(passengers.contains(trip.getPassId()) && routes.contains(trip.getRouteId()));
+                    assertFalse(trip.getDate().isBefore(LocalDate.of(2024, 1, 1)));
+                    assertFalse(trip.getDate().isAfter(LocalDate.of(2024, 12, 31)));
+                    trips++;
+                }
+                default -> fail("Unexpected entity " + entity);
+            }
+        }
+
+        assertEquals(SETTINGS.airlines(), airlines.size());
+        assertEquals(SETTINGS.airports(), airports.size());
+        assertEquals(SETTINGS.passengers(), passengers.size());
+        assertEquals(SETTINGS.trips(), trips);
+        assertTrue(routes.size() >= SETTINGS.airports() * SETTINGS.routesPerAirport() / 2, "routes: " + routes.size());
+    }
+
+    @Test
+    void readsWrittenDatasetsBack() throws IOException {
+        List<Entity> generated = new ArrayList<>();
+        new NetworkGenerator(SETTINGS).generate(collector(generated));
+        List<Entity> loaded = new ArrayList<>();
+
+        long count = JsonLinesDataset.load(write(SETTINGS, directory), collector(loaded));
+
+        assertEquals(generated.size(), count);
+        assertEquals(generated.size(), loaded.size());
+        for (int i = 0; i < generated.size(); i++) {
+            assertEquals(generated.get(i).getClass(), loaded.get(i).getClass());
+            assertEquals(generated.get(i).toString(), loaded.get(i).toString());
+        }
+    }
+
+    private static Path write(NetworkGenerator.Settings settings, Path directory) throws IOException {
+        try (DatasetSink sink = JsonLinesDataset.writer(directory)) {
+            new NetworkGenerator(settings).generate(sink);
+        }
+        return directory;
+    }
+
+    private static DatasetSink collector(List<Entity> entities) {
+        return new DatasetSink() {
+            @Override
+            public void accept(Entity entity) {
+                entities.add(entity);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
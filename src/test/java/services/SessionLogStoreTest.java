@@ -0,0 +1,151 @@
+package services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.SessionLogStore.Rotation;
+import services.SessionLogStore.Segment;
+import services.SessionLogWriter.SyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionLogStoreTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 8, 0);
+    private static final int SESSIONS = 40;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private SessionLogStore store;
+
+    @BeforeEach
+    void writeSessions() throws InterruptedException {
+        // About three sessions per segment.
+        store = new SessionLogStore(directory.resolve("sessions.jsonl"), new Rotation(150, Long.MAX_VALUE), mapper);
+        SessionLogWriter writer = new SessionLogWriter(store, mapper, 16, SyncPolicy.everyRecord());
+        try {
+            for (int i = 0; i < SESSIONS; i++) {
+                assertTrue(writer.append(session(i)));
+                writer.flush();
+            }
+        } finally {
+            writer.close();
+        }
+        assertEquals(SESSIONS, writer.stats().written());
+    }
+
+    @Test
+    void rotatesIntoIndexedCompressedSegments() throws IOException {
+        List<Segment> segments = store.segments();
+        assertTrue(segments.size() > 5, segments.toString());
+
+        Segment active = segments.getLast();
+        assertEquals(store.activeSegment(), active.path());
+        assertFalse(active.compressed());
+
+        long sessions = 0;
+        String previous = null;
+        for (Segment segment : segments.subList(0, segments.size() - 1)) {
+            assertTrue(segment.compressed(), segment.toString());
+            assertTrue(segment.path().toString().endsWith(".jsonl.gz"), segment.toString());
+            assertFalse(Files.exists(Path.of(segment.path().toString().replaceFirst("\\.gz$", ""))));
+
+            List<String> startTimes;
+            try (Stream<Map<String, Object>> read = sessionsOf(segment)) {
+                startTimes = read.map(session -> (String) session.get("start_time")).toList();
+            }
+            assertEquals(startTimes.size(), segment.sessions());
+            assertEquals(startTimes.getFirst(), segment.firstStartTime());
+            assertEquals(startTimes.getLast(), segment.lastStartTime());
+            if (previous != null)
+                assertTrue(previous.compareTo(segment.firstStartTime()) < 0, "segments listed oldest first");
+            previous = segment.lastStartTime();
+            sessions += segment.sessions();
+        }
+
+        sessions += Files.readAllLines(active.path()).size();
+        assertEquals(SESSIONS, sessions);
+    }
+
+    @Test
+    void readsTheSessionsBetweenTwoTimes() {
+        for (int[] range : new int[][]{{0, SESSIONS - 1}, {5, 12}, {17, 17}, {SESSIONS - 2, SESSIONS - 1}}) {
+            List<Integer> expected = new ArrayList<>();
+            for (int i = range[0]; i <= range[1]; i++)
+                expected.add(i);
+
+            try (Stream<Map<String, Object>> sessions = store.sessionsBetween(startTime(range[0]), startTime(range[1]))) {
+                assertEquals(expected, sessions.map(session -> (Integer) session.get("id")).toList());
+            }
+        }
+
+        try (Stream<Map<String, Object>> sessions = store.sessionsBetween(START.minusDays(1), START.minusMinutes(1))) {
+            assertEquals(0, sessions.count());
+        }
+    }
+
+    @Test
+    void skipsTheSegmentsOutsideTheRange() throws IOException {
+        // Replace every archived segment before the range by an unreadable one, keeping its index.
+        List<Segment> segments = store.segments();
+        Segment last = segments.get(segments.size() - 2);
+        for (Segment segment : segments) {
+            if (segment.compressed() && segment != last)
+                Files.writeString(segment.path(), "not gzip");
+        }
+
+        LocalDateTime from = LocalDateTime.parse(last.firstStartTime(), SessionLogger.DATE_FORMAT);
+        try (Stream<Map<String, Object>> sessions = store.sessionsBetween(from, startTime(SESSIONS))) {
+            int first = (Integer) sessions.findFirst().orElseThrow().get("id");
+            assertEquals(from, startTime(first));
+        }
+    }
+
+    @Test
+    void archivesSegmentsLeftUncompressed() throws IOException {
+        Path closed = directory.resolve("sessions-20240101-000000-000.jsonl");
+        Files.writeString(closed, mapper.writeValueAsString(Map.of("id", -2, "start_time", "2024-01-01 00:00:05")) + "\n"
+                + mapper.writeValueAsString(Map.of("id", -1, "start_time", "2024-01-01 00:00:01")) + "\n");
+
+        Segment pending = store.segments().getFirst();
+        assertEquals(closed, pending.path());
+        assertFalse(pending.compressed());
+        assertEquals(-1, pending.sessions());
+
+        store.archivePending();
+
+        Segment archived = store.segments().getFirst();
+        assertTrue(archived.compressed());
+        assertEquals("2024-01-01 00:00:01", archived.firstStartTime());
+        assertEquals("2024-01-01 00:00:05", archived.lastStartTime());
+        assertEquals(2, archived.sessions());
+        assertFalse(Files.exists(closed));
+        assertEquals(SESSIONS + 2, store.sessionsBetween(START.minusYears(1), startTime(SESSIONS)).count());
+    }
+
+    private Stream<Map<String, Object>> sessionsOf(Segment segment) {
+        // The index of a segment bounds the range, so every session read comes from it alone.
+        return store.sessionsBetween(LocalDateTime.parse(segment.firstStartTime(), SessionLogger.DATE_FORMAT),
+                LocalDateTime.parse(segment.lastStartTime(), SessionLogger.DATE_FORMAT));
+    }
+
+    private static Map<String, Object> session(int id) {
+        return Map.of("id", id, "start_time", startTime(id).format(SessionLogger.DATE_FORMAT));
+    }
+
+    private static LocalDateTime startTime(int id) {
+        return START.plusMinutes(id);
+    }
+}
@@ -0,0 +1,189 @@
+package services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import services.SessionLogWriter.SyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionLogWriterTest {
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    private SessionLogWriter writer;
+
+    @AfterEach
+    void close() {
+        if (writer != null)
+            writer.close();
+    }
+
+    @Test
+    void flushWritesEveryQueuedRecord() throws Exception {
+        writer = open(1024, SyncPolicy.onShutdown());
+        for (int i = 0; i < 500; i++)
+            assertTrue(writer.append(Map.of("id", i)));
+
+        writer.flush();
+
+        assertEquals(ids(0, 500), readIds());
+        SessionLogWriter.Stats stats = writer.stats();
+        assertEquals(500, stats.accepted());
+        assertEquals(500, stats.written());
+        assertEquals(0, stats.rejected());
+        assertEquals(0, stats.queued());
+        assertTrue(stats.batches() >= 2, "at most " + SessionLogWriter.MAX_BATCH + " records per write");
+        assertTrue(stats.syncs() >= 1, "a flush forces the file to disk");
+    }
+
+    @Test
+    void closeWritesQueuedRecordsThenRejectsNewOnes() throws Exception {
+        writer = open(1024, SyncPolicy.every(60_000));
+        for (int i = 0; i < 100; i++)
+            writer.append(Map.of("id", i));
+
+        writer.close();
+
+        assertEquals(ids(0, 100), readIds());
+        assertFalse(writer.append(Map.of("id", 100)));
+        writer.flush();
+        assertEquals(100, writer.stats().written());
+        assertTrue(writer.isClosed());
+        assertEquals(1, writer.stats().rejectedClosed());
+        assertEquals(0, writer.stats().rejectedFull());
+    }
+
+    @Test
+    void rejectsRecordsWhileTheQueueIsFull() throws Exception {
+        writer = open(4, SyncPolicy.everyRecord());
+        CountDownLatch serializing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // The writer thread waits inside the serialization of this record, so the queue fills up.
+        assertTrue(writer.append(new Object() {
+            public int getId() throws InterruptedException {
+                serializing.countDown();
+                release.await();
+                return -1;
+            }
+        }));
+        serializing.await();
+
+        int accepted = 0;
+        for (int i = 0; i < 10; i++) {
+            if (writer.append(Map.of("id", i)))
+                accepted++;
+        }
+        assertEquals(4, accepted);
+        assertFalse(writer.isClosed());
+        assertEquals(6, writer.stats().rejectedFull());
+        assertEquals(0, writer.stats().rejectedClosed());
+        assertEquals(4, writer.stats().maxQueued());
+
+        release.countDown();
+        writer.flush();
+        List<Integer> expected = new ArrayList<>(List.of(-1));
+        expected.addAll(ids(0, 4));
+        assertEquals(expected, readIds());
+    }
+
+    @Test
+    void countsUnserializableRecordsAsFailed() throws Exception {
+        writer = open(16, SyncPolicy.everyRecord());
+        writer.append(Map.of("id", 0));
+        writer.append(new Object() {
+            public int getId() {
+                throw new IllegalStateException("not serializable");
+            }
+        });
+        writer.append(Map.of("id", 1));
+
+        writer.flush();
+
+        assertEquals(ids(0, 2), readIds());
+        assertEquals(1, writer.stats().failed());
+        assertEquals(2, writer.stats().written());
+    }
+
+    @Test
+    void keepsConcurrentRecordsOnSeparateLines() throws Exception {
+        writer = open(100_000, SyncPolicy.every(10));
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int first = t * 1000;
+            threads.add(Thread.startVirtualThread(() -> {
+                for (int i = first; i < first + 1000; i++)
+                    writer.append(Map.of("id", i, "padding", "x".repeat(i % 200)));
+            }));
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        writer.flush();
+
+        assertEquals(new HashSet<>(ids(0, 8000)), Set.copyOf(readIds()));
+        assertEquals(8000, readIds().size());
+    }
+
+    @Test
+    void agesTheActiveSegmentFromItsRecordedStart() throws Exception {
+        Path active = directory.resolve("sessions.jsonl");
+        Path opened = directory.resolve("sessions.jsonl.opened");
+        long hourAgo = System.currentTimeMillis() - 3_600_000;
+        SessionLogStore store = new SessionLogStore(active, new SessionLogStore.Rotation(Long.MAX_VALUE, 60_000), mapper);
+        writer = new SessionLogWriter(store, mapper, 16, SyncPolicy.everyRecord());
+        writer.append(Map.of("id", 0));
+        writer.close();
+        assertTrue(Files.exists(opened));
+
+        // Untouched for an hour, but started just now.
+        Files.setLastModifiedTime(active, FileTime.fromMillis(hourAgo));
+        writer = new SessionLogWriter(store, mapper, 16, SyncPolicy.everyRecord());
+        writer.append(Map.of("id", 1));
+        writer.close();
+        assertEquals(0, writer.stats().rotations());
+        assertEquals(ids(0, 2), readIds());
+
+        // Started an hour ago, whatever the file times say.
+        Files.writeString(opened, Long.toString(hourAgo));
+        writer = new SessionLogWriter(store, mapper, 16, SyncPolicy.everyRecord());
+        writer.append(Map.of("id", 2));
+        writer.flush();
+        assertEquals(1, writer.stats().rotations());
+        assertEquals(List.of(2), readIds());
+        assertTrue(Long.parseLong(Files.readString(opened)) > hourAgo);
+    }
+
+    private SessionLogWriter open(int capacity, SyncPolicy syncPolicy) {
+        SessionLogStore store = new SessionLogStore(directory.resolve("sessions.jsonl"), SessionLogStore.Rotation.never(), mapper);
+        return new SessionLogWriter(store, mapper, capacity, syncPolicy);
+    }
+
+    private List<Integer> readIds() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        for (String line : Files.readAllLines(directory.resolve("sessions.jsonl")))
+            ids.add(mapper.readTree(line).get("id").asInt());
+        return ids;
+    }
+
+    private static List<Integer> ids(int from, int to) {
+        List<Integer> ids = new ArrayList<>();
+        for (int id = from; id < to; id++)
+            ids.add(id);
+        return ids;
+    }
+}